@@ -0,0 +1,353 @@
+/*
+ * File: BitBoard.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class holds the static operations for a packed 4x4 board. The whole
+ * board is stored in a single long where each cell is a 4-bit nibble holding
+ * the log2 exponent of the tile (0 means the cell is empty, 1 is a 2, 2 is a
+ * 4, and so on). Cell (y, x) lives in nibble y*4 + x, so row y takes up bits
+ * 16*y through 16*y + 15 with column 0 in the lowest nibble.
+ *
+ * Moves are table driven: every possible 16-bit row is slid left and right
+ * once when the class loads, and a move is then four table lookups (up and
+ * down transpose the board and reuse the same row tables).
+ */
+
+
+public final class BitBoard {
+	public static final int SIZE = 4;
+	public static final int TILES = SIZE*SIZE;
+	public static final int MAX_EXPONENT = 15; // largest exponent a nibble can hold (32768)
+
+	// directions understood by move() and moveScore()
+	public static final int LEFT = 0;
+	public static final int RIGHT = 1;
+	public static final int UP = 2;
+	public static final int DOWN = 3;
+
+	private static final long ROW_MASK = 0xFFFFL;
+	private static final int ROWS = 1 << 16; // number of distinct 16-bit rows
+
+	// row transition tables indexed by the 16-bit row encoding, holding the
+	// row after the slide
+	private static final char[] ROW_LEFT = new char[ROWS];
+	private static final char[] ROW_RIGHT = new char[ROWS];
+	// sum of the values of the tiles created by merges when sliding a row
+	private static final int[] SCORE_LEFT = new int[ROWS];
+	private static final int[] SCORE_RIGHT = new int[ROWS];
+	// largest exponent in each row
+	private static final byte[] ROW_MAX = new byte[ROWS];
+
+	static {
+		for (int row=0; row<ROWS; row++){
+			ROW_LEFT[row] = (char) slideRowLeft(row);
+			SCORE_LEFT[row] = mergeScore(row);
+
+			// sliding right is sliding the mirrored row left and mirroring it back
+			int reversed = reverseRow(row);
+			ROW_RIGHT[row] = (char) reverseRow(slideRowLeft(reversed));
+			SCORE_RIGHT[row] = mergeScore(reversed);
+
+			for (int i=0; i<SIZE; i++){
+				ROW_MAX[row] = (byte) Math.max(ROW_MAX[row], (row >>> (4*i)) & 0xF);
+			}
+		}
+	}
+
+	// no instances, this class only groups static helpers
+	private BitBoard(){
+	}
+
+	/**
+	 * Obtains the exponent stored at a position on a packed board
+	 *
+	 * @param board: long; the packed board
+	 * @param y: int; row index between 0 and 3
+	 * @param x: int; column index between 0 and 3
+	 * @return int; the exponent of the tile, 0 if the cell is empty
+	 */
+	public static int get(long board, int y, int x){
+		return (int) (board >>> (4*(y*SIZE + x))) & 0xF;
+	}
+
+	/**
+	 * Places an exponent at a position on a packed board
+	 *
+	 * @pre 0 <= exponent <= MAX_EXPONENT
+	 * @return long; the board with the cell replaced
+	 */
+	public static long set(long board, int y, int x, int exponent){
+		int shift = 4*(y*SIZE + x);
+		return (board & ~(0xFL << shift)) | ((long) exponent << shift);
+	}
+
+	/**
+	 * Converts a tile value into the exponent stored on a packed board
+	 *
+	 * @pre value is 0 or a power of two
+	 * @return int; log2 of the value, or 0 for an empty cell
+	 */
+	public static int exponentOf(int value){
+		return value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+	}
+
+	/**
+	 * Converts an exponent back into the tile value it represents
+	 *
+	 * @return int; 2^exponent, or 0 for an empty cell
+	 */
+	public static int valueOf(int exponent){
+		return exponent == 0 ? 0 : 1 << exponent;
+	}
+
+	/**
+	 * Slides the tiles of the board in the given direction, merging like tiles
+	 *
+	 * @pre direction is one of LEFT, RIGHT, UP or DOWN
+	 * @return long; the shifted board, equal to the input if nothing moved
+	 */
+	public static long move(long board, int direction){
+		switch (direction){
+			case LEFT:
+				return moveLeft(board);
+			case RIGHT:
+				return moveRight(board);
+			case UP:
+				return moveUp(board);
+			default:
+				return moveDown(board);
+		}
+	}
+
+	/**
+	 * Slides every row of the board towards column 0, merging like tiles
+	 *
+	 * @return long; the shifted board, equal to the input if nothing moved
+	 */
+	public static long moveLeft(long board){
+		return applyRows(board, ROW_LEFT);
+	}
+
+	/**
+	 * Slides every row of the board towards column 3, merging like tiles
+	 *
+	 * @return long; the shifted board, equal to the input if nothing moved
+	 */
+	public static long moveRight(long board){
+		return applyRows(board, ROW_RIGHT);
+	}
+
+	/**
+	 * Slides every column of the board towards row 0, merging like tiles
+	 *
+	 * @return long; the shifted board, equal to the input if nothing moved
+	 */
+	public static long moveUp(long board){
+		return transpose(applyRows(transpose(board), ROW_LEFT));
+	}
+
+	/**
+	 * Slides every column of the board towards row 3, merging like tiles
+	 *
+	 * @return long; the shifted board, equal to the input if nothing moved
+	 */
+	public static long moveDown(long board){
+		return transpose(applyRows(transpose(board), ROW_RIGHT));
+	}
+
+	/**
+	 * Obtains the points a move would earn, i.e. the sum of the values of
+	 * every tile created by a merge
+	 *
+	 * @pre direction is one of LEFT, RIGHT, UP or DOWN
+	 * @return int; 0 if the move merges nothing
+	 */
+	public static int moveScore(long board, int direction){
+		switch (direction){
+			case LEFT:
+				return sumRows(board, SCORE_LEFT);
+			case RIGHT:
+				return sumRows(board, SCORE_RIGHT);
+			case UP:
+				return sumRows(transpose(board), SCORE_LEFT);
+			default:
+				return sumRows(transpose(board), SCORE_RIGHT);
+		}
+	}
+
+	/**
+	 * Swaps rows and columns, so cell (y, x) ends up at (x, y)
+	 *
+	 * @return long; the transposed board
+	 */
+	public static long transpose(long board){
+		long a1 = board & 0xF0F00F0FF0F00F0FL;
+		long a2 = board & 0x0000F0F00000F0F0L;
+		long a3 = board & 0x0F0F00000F0F0000L;
+		long a = a1 | (a2 << 12) | (a3 >>> 12);
+		long b1 = a & 0xFF00FF0000FF00FFL;
+		long b2 = a & 0x00FF00FF00000000L;
+		long b3 = a & 0x00000000FF00FF00L;
+		return b1 | (b2 >>> 24) | (b3 << 24);
+	}
+
+	/**
+	 * Counts the empty cells on the board
+	 *
+	 * @return int; number of nibbles that are 0
+	 */
+	public static int countEmpty(long board){
+		return Long.bitCount(emptyMask(board));
+	}
+
+	/**
+	 * Marks the empty cells of the board
+	 *
+	 * @return long; bit 4*i is set when cell i (row major) is empty, all
+	 * other bits are 0
+	 */
+	public static long emptyMask(long board){
+		// fold each nibble down to its lowest bit, set only if the nibble is non-zero
+		long occupied = board | (board >>> 1);
+		occupied |= occupied >>> 2;
+		return ~occupied & 0x1111111111111111L;
+	}
+
+	/**
+	 * Finds the position of the rank-th set bit of a mask, counting from the
+	 * lowest bit; it halves the mask six times rather than walking every bit
+	 *
+	 * @pre 0 <= rank < Long.bitCount(mask)
+	 * @return int; the bit index, between 0 and 63
+	 */
+	public static int selectBit(long mask, int rank){
+		int index = 0;
+		for (int width=32; width>0; width>>=1){
+			long low = mask & ((1L << width) - 1);
+			int count = Long.bitCount(low);
+			if (rank >= count) {
+				rank -= count;
+				mask >>>= width;
+				index += width;
+			} else {
+				mask = low;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Determines whether any of the four moves would change the board
+	 *
+	 * @return boolean; true if there is an empty cell or two adjacent equal tiles
+	 */
+	public static boolean canMove(long board){
+		// on a full board a left move changes it exactly when a right move
+		// does (some pair of neighbours in a row is equal), same for up and down
+		return countEmpty(board) > 0 || moveLeft(board) != board || moveUp(board) != board;
+	}
+
+	/**
+	 * Determines whether a tile with the given exponent is on the board
+	 *
+	 * @pre 1 <= exponent <= MAX_EXPONENT
+	 * @return boolean; true if some cell holds exactly that exponent
+	 */
+	public static boolean contains(long board, int exponent){
+		return count(board, exponent) > 0;
+	}
+
+	/**
+	 * Counts the tiles with the given exponent
+	 *
+	 * @pre 1 <= exponent <= MAX_EXPONENT
+	 * @return int; number of cells holding exactly that exponent
+	 */
+	public static int count(long board, int exponent){
+		// cells matching the exponent turn into empty cells once xor-ed with it
+		return countEmpty(board ^ (0x1111111111111111L * exponent));
+	}
+
+	/**
+	 * Finds the largest exponent on the board
+	 *
+	 * @return int; the biggest exponent, 0 for an empty board
+	 */
+	public static int maxExponent(long board){
+		return Math.max(Math.max(ROW_MAX[(int) (board & ROW_MASK)], ROW_MAX[(int) ((board >>> 16) & ROW_MASK)]),
+				Math.max(ROW_MAX[(int) ((board >>> 32) & ROW_MASK)], ROW_MAX[(int) (board >>> 48)]));
+	}
+
+	/**
+	 * Sums the values of all tiles on the board
+	 *
+	 * @return int; the total of 2^exponent over all non-empty cells
+	 */
+	public static int sum(long board){
+		int sum = 0;
+		for (int i=0; i<TILES; i++){
+			sum += valueOf((int) (board >>> (4*i)) & 0xF);
+		}
+		return sum;
+	}
+
+	// looks up each of the four rows of the board in a row transition table
+	private static long applyRows(long board, char[] table){
+		return (long) table[(int) (board & ROW_MASK)]
+			| (long) table[(int) ((board >>> 16) & ROW_MASK)] << 16
+			| (long) table[(int) ((board >>> 32) & ROW_MASK)] << 32
+			| (long) table[(int) (board >>> 48)] << 48;
+	}
+
+	// adds up the table entries of the four rows of the board
+	private static int sumRows(long board, int[] table){
+		return table[(int) (board & ROW_MASK)]
+			+ table[(int) ((board >>> 16) & ROW_MASK)]
+			+ table[(int) ((board >>> 32) & ROW_MASK)]
+			+ table[(int) (board >>> 48)];
+	}
+
+	// slides a single 16-bit row towards its lowest nibble, each tile merging
+	// at most once; two MAX_EXPONENT tiles are left unmerged since the result
+	// would not fit in a nibble. Returns the slid row
+	static int slideRowLeft(int row){
+		int result = 0;
+		int out = 0; // next free nibble in the result
+		int pending = 0; // tile waiting to see if the next one merges into it
+		for (int i=0; i<SIZE; i++){
+			int e = (row >>> (4*i)) & 0xF;
+			if (e == 0) continue;
+			if (e == pending && e < MAX_EXPONENT){
+				result |= (e + 1) << (4*out++);
+				pending = 0;
+			} else {
+				if (pending != 0) result |= pending << (4*out++);
+				pending = e;
+			}
+		}
+		if (pending != 0) result |= pending << (4*out);
+		return result;
+	}
+
+	// sum of the values of the tiles a left slide of the row creates by merging
+	private static int mergeScore(int row){
+		int score = 0;
+		int pending = 0;
+		for (int i=0; i<SIZE; i++){
+			int e = (row >>> (4*i)) & 0xF;
+			if (e == 0) continue;
+			if (e == pending && e < MAX_EXPONENT){
+				score += valueOf(e + 1);
+				pending = 0;
+			} else {
+				pending = e;
+			}
+		}
+		return score;
+	}
+
+	// mirrors the nibbles of a 16-bit row
+	static int reverseRow(int row){
+		return ((row & 0xF) << 12) | ((row & 0xF0) << 4) | ((row >>> 4) & 0xF0) | ((row >>> 12) & 0xF);
+	}
+}
@@ -0,0 +1,96 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BitBoardTest {
+
+	// builds a packed board from a 4x4 grid of tile values
+	private long packedOf(int[][] values) {
+		long board = 0;
+		for (int y = 0; y < 4; y++) {
+			for (int x = 0; x < 4; x++) {
+				board = BitBoard.set(board, y, x, BitBoard.exponentOf(values[y][x]));
+			}
+		}
+		return board;
+	}
+
+	@Test
+	public void testSetAndGet() {
+		long board = BitBoard.set(0, 2, 3, 5);
+
+		assertEquals("Exponent at (2, 3) should be 5", 5, BitBoard.get(board, 2, 3));
+		assertEquals("Exponent at (3, 2) should be 0", 0, BitBoard.get(board, 3, 2));
+		assertEquals("Board should have 15 empty cells", 15, BitBoard.countEmpty(board));
+	}
+
+	@Test
+	public void testMoveRight() {
+		long board = packedOf(new int[][] {
+			{2, 2, 0, 0},
+			{0, 4, 2, 2},
+			{0, 0, 4, 2},
+			{2, 2, 2, 2}});
+
+		long expected = packedOf(new int[][] {
+			{0, 0, 0, 4},
+			{0, 0, 4, 4},
+			{0, 0, 4, 2},
+			{0, 0, 4, 4}});
+
+		assertEquals("Rows should slide and merge to the right", expected, BitBoard.moveRight(board));
+	}
+
+	@Test
+	public void testMoveLeftAndUp() {
+		long board = packedOf(new int[][] {
+			{2, 0, 0, 2},
+			{2, 0, 0, 0},
+			{4, 0, 0, 0},
+			{4, 0, 0, 0}});
+
+		assertEquals("Exponent at (0, 0) should be 2 (a 4) after moving left", 2, BitBoard.get(BitBoard.moveLeft(board), 0, 0));
+		long up = BitBoard.moveUp(board);
+		assertEquals("Exponent at (0, 0) should be 2 (a 4) after moving up", 2, BitBoard.get(up, 0, 0));
+		assertEquals("Exponent at (1, 0) should be 3 (an 8) after moving up", 3, BitBoard.get(up, 1, 0));
+	}
+
+	@Test
+	public void testMoveDownUnchanged() {
+		long board = packedOf(new int[][] {
+			{0, 0, 0, 0},
+			{0, 0, 0, 0},
+			{2, 0, 0, 0},
+			{4, 8, 2, 4}});
+
+		assertEquals("Nothing should move down", board, BitBoard.moveDown(board));
+	}
+
+	@Test
+	public void testCanMove() {
+		long stuck = packedOf(new int[][] {
+			{2, 4, 2, 4},
+			{4, 2, 4, 2},
+			{2, 4, 2, 4},
+			{4, 2, 4, 2}});
+
+		assertFalse("Checkerboard should have no moves", BitBoard.canMove(stuck));
+		assertTrue("Merge should be possible", BitBoard.canMove(BitBoard.set(stuck, 0, 0, 2)));
+		assertEquals("Sum should be 48", 48, BitBoard.sum(stuck));
+	}
+
+	@Test
+	public void testTransposeAndMoveScore() {
+		long board = packedOf(new int[][] {
+			{2, 4, 0, 0},
+			{2, 0, 0, 0},
+			{8, 0, 0, 8},
+			{8, 0, 0, 0}});
+
+		assertEquals("Tile at (0, 1) should move to (1, 0)", 4, BitBoard.valueOf(BitBoard.get(BitBoard.transpose(board), 1, 0)));
+		assertEquals("Transposing twice should restore the board", board, BitBoard.transpose(BitBoard.transpose(board)));
+		assertEquals("Merging up should earn 4 + 16", 20, BitBoard.moveScore(board, BitBoard.UP));
+		assertEquals("Merging right should earn 16", 16, BitBoard.moveScore(board, BitBoard.RIGHT));
+		assertEquals("move() should dispatch on direction", BitBoard.moveDown(board), BitBoard.move(board, BitBoard.DOWN));
+	}
+}
@@ -3,17 +3,45 @@
  * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
  * 
  * This class represents the board for our 2048. Size of the board is set to
- * 4x4 by default, but is flexible enough to create boards up to 8x8.
+ * 4x4 by default, but is flexible enough to create boards up to 8x8. Tiles
+ * are stored as log2 exponents rather than Tile objects: a 4x4 board is packed
+ * into a single long (see BitBoard) and larger boards use a byte per cell
+ * (see ByteBoard), so moves do not allocate. The tiles can be read in place
+ * through ReadOnlyBoard, with a version that changes on every change.
  */
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 
-public class Board {
+public class Board implements ReadOnlyBoard {
 	private final int SIZE;
 	private final int TILES;
-	private final int[] RANDOM_DISTRIBUTION = {2,2,2,4}; // 75% chance to be a 2
-	private Tile[][] board;
+	protected static final int[] RANDOM_DISTRIBUTION = {2,2,2,4}; // 75% chance to be a 2
+	// names accepted by update(), indexed by BitBoard.LEFT, RIGHT, UP and DOWN
+	protected static final String[] DIRECTIONS = {"left", "right", "up", "down"};
+	private final boolean PACKED; // true for a 4x4 board stored in a long
+	private long packed; // 4-bit exponents of a 4x4 board, used when PACKED
+	private byte[] cells; // row major exponents of a larger board, used when !PACKED
+	private byte[] scratch; // trial copy of cells for emptyAfterShift()
+	// one bit per empty cell: bit 4*i of the packed board, or bit i of cells
+	private long empty;
+	private final RandomGenerator random; // decides where and what new tiles are
+	private MoveHistory history; // positions for undo and redo, null when turned off
+	private long version; // counts changes to the tiles
+
+	// kept up to date as tiles are shifted, merged and added, so that the
+	// score and game over queries do not have to look at every cell
+	private static final int WIN_EXPONENT = BitBoard.exponentOf(2048);
+	private int score; // sum of all tiles
+	private int maxExponent; // exponent of the biggest tile
+	private int winTiles; // number of 2048 tiles
+	private boolean movesChecked; // whether movesAvailable is known for this position
+	private boolean movesAvailable; // only meaningful when movesChecked
+
+	// when set, every query compares the tracked values with a full rescan of
+	// the board and throws if they differ; turn on with -Dboard.debug=true
+	private static boolean debugChecks = Boolean.getBoolean("board.debug");
 	
 	
 	/*
@@ -21,13 +49,7 @@ public class Board {
 	 * planed tiles
 	 */
 	public Board(){
-		SIZE = 4;
-		TILES = SIZE*SIZE; 
-		board = new Tile[SIZE][SIZE];
-		
-		// Adds the first two tiles
-		addRandomTile();
-		addRandomTile();	
+		this(4);
 	}
 
 	/*
@@ -36,9 +58,34 @@ public class Board {
   	 * @param size - size between 4 - 8
 	 */
 	public Board(int size){
+		this(size, new SplittableRandom());
+	}
+
+	/*
+	 * Constructor for a reproducible board; two boards with the same size and
+	 * seed place the same tiles as long as they are given the same moves
+	 * @param size - size between 4 - 8
+	 * @param seed - seed for the tile placement
+	 */
+	public Board(int size, long seed){
+		this(size, new SplittableRandom(seed));
+	}
+
+	/*
+	 * Constructor for a board drawing its new tiles from the given generator;
+	 * initializes it with 2 randomly placed tiles
+	 * @param size - size between 4 - 8
+	 * @param random - generator used for every new tile, owned by this board
+	 */
+	public Board(int size, RandomGenerator random){
+		this.random = random;
 		SIZE = size;
 		TILES = size*size;
-		board = new Tile[SIZE][SIZE];
+		PACKED = size == BitBoard.SIZE;
+		if (!PACKED) {
+			cells = new byte[TILES];
+		}
+		empty = PACKED ? BitBoard.emptyMask(0) : ByteBoard.emptyMask(cells);
 		
 		// Adds the first two tiles
 		addRandomTile();
@@ -53,30 +100,129 @@ public class Board {
 	 * @return boolean; whether the board could be updated
 	 */
 	public boolean update(String direction){
-		boolean shifted = true;
+		int dir;
 		switch (direction){
 			case "right":
-				shifted = shiftRight();
+				dir = BitBoard.RIGHT;
 				break;
 			case "left":
-				shifted = shiftLeft();
+				dir = BitBoard.LEFT;
 				break;
 			case "up":
-				shifted = shiftUp();
+				dir = BitBoard.UP;
 				break;
 			case "down":
-				shifted = shiftDown();
+				dir = BitBoard.DOWN;
 				break;
 			default:
 				//this should not occur
 				System.out.println("Error: wasn't able to update!");
 				return false;
 		}
-			
-		if(!shifted) {
-			return false; // has to be false for correct sound to play 
+
+		return MoveResult.changed(move(dir, true));
+	}
+
+	/**
+	 * Shifts the tiles in a direction to merge like tiles without creating
+	 * any objects; the outcome is packed into a long read with MoveResult
+	 * 
+	 * @pre direction is one of BitBoard.LEFT, RIGHT, UP or DOWN
+	 * @param direction: int; indicates the direction to shift the tiles
+	 * @param spawn: boolean; whether to add a random tile after a shift
+	 * @return long; MoveResult.NONE if nothing moved, otherwise whether and
+	 * where a tile was added, the number of merges and the points they earned
+	 */
+	public long move(int direction, boolean spawn){
+		long start = Metrics.start();
+		try {
+			return shift(direction, spawn);
+		} finally {
+			// rejected moves are timed too, only changed ones are counted
+			Metrics.stop(Metrics.MOVE, start);
+		}
+	}
+
+	// does the work of move()
+	private long shift(int direction, boolean spawn){
+		int tilesBefore = tileCount();
+		long mergeScore;
+		if (PACKED) {
+			long moved = BitBoard.move(packed, direction);
+			if (moved == packed) return MoveResult.NONE;
+			mergeScore = BitBoard.moveScore(packed, direction);
+			packed = moved;
+		} else {
+			mergeScore = ByteBoard.move(cells, SIZE, direction);
+			if (mergeScore < 0) return MoveResult.NONE;
 		}
-		return addRandomTile();
+		afterShift();
+		// every merge turns two tiles into one
+		int merges = tilesBefore - tileCount();
+		int spawned = spawn ? spawnTile() : -1;
+		if (history != null) history.record(this);
+		Metrics.countMove();
+		return MoveResult.of((int) Math.min(mergeScore, Integer.MAX_VALUE), merges,
+				spawned < 0 ? -1 : spawned >> 4, spawned & 0xF);
+	}
+	
+	/**
+	 * Takes an immutable copy of the tiles on the board
+	 * 
+	 * @return BoardSnapshot; the current position, unaffected by later moves
+	 */
+	public BoardSnapshot snapshot(){
+		if (PACKED) return new BoardSnapshot(packed, version);
+		return new BoardSnapshot(SIZE, cells.clone(), version);
+	}
+
+	/**
+	 * Puts the tiles of a snapshot back on the board; the undo history is
+	 * left as it is
+	 * 
+	 * @param snapshot: BoardSnapshot; a position of a board of the same size
+	 */
+	public void restore(BoardSnapshot snapshot){
+		if (snapshot.getSize() != SIZE) {
+			throw new IllegalArgumentException("snapshot of a " + snapshot.getSize() + "x" + snapshot.getSize()
+					+ " board cannot be put on a " + SIZE + "x" + SIZE + " board");
+		}
+		if (PACKED) {
+			load(snapshot.packed());
+		} else {
+			snapshot.copyCells(cells);
+			afterLoad();
+		}
+	}
+
+	/**
+	 * Sets how many moves can be undone; the history starts at the current
+	 * position and only moves made from now on are recorded
+	 * 
+	 * @param levels: int; moves that can be undone, 0 turns undo off
+	 */
+	public void setUndoLevels(int levels){
+		history = levels == 0 ? null : new MoveHistory(levels, SIZE);
+		if (history != null) history.record(this);
+	}
+
+	/**
+	 * Takes back the last move
+	 * 
+	 * @return boolean; false if undo is off or there is no move to take back
+	 */
+	public boolean undo(){
+		return history != null && history.undo(this);
+	}
+
+	/**
+	 * Makes the last undone move again, with the same new tile
+	 * 
+	 * @return boolean; false if undo is off or nothing was undone since the
+	 * last move
+	 */
+	public boolean redo(){
+		return history != null && history.redo(this);
 	}
 	
 	/**
@@ -84,6 +230,7 @@ public class Board {
 	 * 
 	 * @return int; represents the number of tiles per row/column
 	 */
+	@Override
 	public int getSize() {
 		return SIZE;
 	}
@@ -91,14 +238,15 @@ public class Board {
 	/**
 	 * Obtains the current arrangement of tiles on the board
 	 * 
-	 * @return Tile[][]; a 2D list copy of the board
+	 * @return Tile[][]; a 2D list copy of the board, holding the shared tiles
+	 * of Tile.of()
 	 */
 	public Tile[][] getBoardState(){
 		Tile[][] boardState = new Tile[SIZE][SIZE];
 
 		for (int i=0; i<SIZE; i++){
 			for (int j=0; j<SIZE; j++){
-				boardState[i][j] = new Tile(valAt(i,j));
+				boardState[i][j] = Tile.of(valAt(i,j));
 			}
 		}
 		return boardState;
@@ -134,22 +282,34 @@ public class Board {
 	 * merges
 	 */
 	public int gameOverCode() {	
-		for (int i = 0; i < TILES; i++) {
-			if (valAt(i/SIZE, i%SIZE) == 2048) {
-				return 1;
-			}
-			
-			if (exists(i/SIZE - 1, i%SIZE) && valAt(i/SIZE, i%SIZE) == valAt(i/SIZE -1, i%SIZE)) { 
-				return 0;
-			}
-			else if (exists(i/SIZE, i%SIZE - 1) && valAt(i/SIZE, i%SIZE) == valAt(i/SIZE , i%SIZE - 1)) {
-				return 0;
-			}
-			else if (valAt(i/SIZE, i%SIZE) == 0) {
-				return 0;
-			}
+		long start = Metrics.start();
+		int code = checkGameOver();
+		Metrics.stop(Metrics.GAME_OVER, start);
+		return code;
+	}
+
+	// works out gameOverCode()
+	private int checkGameOver(){
+		if (debugChecks) verify();
+		if (winTiles > 0) return 1;
+		if (empty != 0) return 0;
+		// a full board only has moves if two neighbours match, which takes a
+		// look at the whole board; remember the answer until the board changes
+		if (!movesChecked) {
+			movesAvailable = PACKED ? BitBoard.canMove(packed) : ByteBoard.canMove(cells, SIZE);
+			movesChecked = true;
 		}
-		return -1;
+		return movesAvailable ? 0 : -1;
+	}
+
+	/**
+	 * Obtains the largest tile on the board
+	 * 
+	 * @return int; value of the biggest tile, 0 if the board is empty
+	 */
+	public int getMaxTile() {
+		if (debugChecks) verify();
+		return BitBoard.valueOf(maxExponent);
 	}
 
 	/**
@@ -159,253 +319,268 @@ public class Board {
 	 * tiles on the board
 	 */
 	public int getScore() {
-		int score = 0;
-		for (int i = 0; i < TILES; i++) {
-			if (board[i/SIZE][i%SIZE] != null) {
-				score += board[i/SIZE][i%SIZE].getVal();
-			}
-		}
+		if (debugChecks) verify();
 		return score;
 	}
+
+	/**
+	 * Turns the debug cross-checks on or off for every board; while on, the
+	 * tracked score, largest tile and game over state are compared with a
+	 * full rescan on each query
+	 * 
+	 * @param enabled: boolean; whether to cross-check
+	 */
+	public static void setDebugChecks(boolean enabled) {
+		debugChecks = enabled;
+	}
 		
 		
 	
 	// checks if board is empty at position in row major order
-	// @pre 0 <= num < 16
+	// @pre 0 <= num < SIZE*SIZE
 	protected boolean emptyAt(int num){
-		return board[num / SIZE][num % SIZE] == null;
+		return emptyAt(num / SIZE, num % SIZE);
 	}
 	
 	// determines if a particular tile position is empty
 	protected boolean emptyAt(int y, int x){
-		return board[y][x] == null;
+		if (PACKED) return BitBoard.get(packed, y, x) == 0;
+		return cells[y*SIZE + x] == 0;
 	}
 	
 	// determines if the board is full
 	protected boolean isFull(){
-		for (int i=0; i<TILES; i++){
-			if (emptyAt(i)) return false;
-		}
-
-		return true;
+		return empty == 0;
 	}
 		
 	// adds a tile to a specified position on the board
 	protected void add(Tile tile, int y, int x){
-		board[y][x] = tile;
+		setExponent(y, x, tile == null ? 0 : BitBoard.exponentOf(tile.getVal()));
+	}
+
+	// places a tile by its exponent at a row major position, used to replay
+	// recorded games
+	protected void spawnAt(int cell, int exponent){
+		setExponent(cell / SIZE, cell % SIZE, exponent);
+	}
+
+	// places a tile by its exponent, 0 empties the position
+	private void setExponent(int y, int x, int exponent){
+		int old;
+		long bit;
+		if (PACKED) {
+			old = BitBoard.get(packed, y, x);
+			packed = BitBoard.set(packed, y, x, exponent);
+			bit = 1L << (4*(y*SIZE + x));
+		} else {
+			old = cells[y*SIZE + x];
+			cells[y*SIZE + x] = (byte) exponent;
+			bit = 1L << (y*SIZE + x);
+		}
+		empty = exponent == 0 ? empty | bit : empty & ~bit;
+		version++;
+		score += BitBoard.valueOf(exponent) - BitBoard.valueOf(old);
+		if (old == WIN_EXPONENT) winTiles--;
+		if (exponent == WIN_EXPONENT) winTiles++;
+		if (exponent > maxExponent) {
+			maxExponent = exponent;
+		} else if (old == maxExponent && exponent < old) {
+			// the biggest tile was overwritten, only add() and remove() do this
+			maxExponent = PACKED ? BitBoard.maxExponent(packed) : rescanMaxExponent();
+		}
+		movesChecked = false;
+	}
+
+	// brings the tracked values up to date after tiles were shifted; merges
+	// keep the sum of the tiles the same, so the score does not change
+	private void afterShift(){
+		movesChecked = false;
+		version++;
+		if (PACKED) {
+			empty = BitBoard.emptyMask(packed);
+			maxExponent = BitBoard.maxExponent(packed);
+			winTiles = BitBoard.count(packed, WIN_EXPONENT);
+			return;
+		}
+		// the shift already walked every cell, one more pass picks up the rest
+		long mask = 0;
+		int max = 0;
+		int wins = 0;
+		for (int i=0; i<TILES; i++){
+			int e = cells[i];
+			if (e == 0) mask |= 1L << i;
+			if (e > max) max = e;
+			if (e == WIN_EXPONENT) wins++;
+		}
+		empty = mask;
+		maxExponent = max;
+		winTiles = wins;
+	}
+
+	// replaces every tile of a 4x4 board with the packed position
+	protected void load(long state){
+		if (!PACKED) throw new IllegalStateException("only 4x4 boards are packed");
+		packed = state;
+		afterLoad();
+	}
+
+	// replaces every tile of a larger board with the row major exponents
+	protected void load(byte[] state){
+		System.arraycopy(state, 0, cells, 0, TILES);
+		afterLoad();
+	}
+
+	// brings the tracked values up to date after every tile was replaced
+	private void afterLoad(){
+		afterShift();
+		score = PACKED ? BitBoard.sum(packed) : ByteBoard.sum(cells);
+	}
+
+	// finds the biggest exponent of a larger board by looking at every cell
+	private int rescanMaxExponent(){
+		int max = 0;
+		for (byte e : cells){
+			max = Math.max(max, e);
+		}
+		return max;
+	}
+
+	// compares every tracked value with a full rescan of the board
+	private void verify(){
+		int sum = PACKED ? BitBoard.sum(packed) : ByteBoard.sum(cells);
+		long mask = PACKED ? BitBoard.emptyMask(packed) : ByteBoard.emptyMask(cells);
+		int max = PACKED ? BitBoard.maxExponent(packed) : rescanMaxExponent();
+		int wins = 0;
+		for (int i=0; i<TILES; i++){
+			if (BitBoard.exponentOf(valAt(i / SIZE, i % SIZE)) == WIN_EXPONENT) wins++;
+		}
+		boolean moves = PACKED ? BitBoard.canMove(packed) : ByteBoard.canMove(cells, SIZE);
+		if (sum != score || mask != empty || max != maxExponent || wins != winTiles
+				|| (movesChecked && moves != movesAvailable)) {
+			throw new IllegalStateException("tracked board state is out of date: score " + score + "/" + sum
+					+ ", max " + maxExponent + "/" + max + ", 2048s " + winTiles + "/" + wins
+					+ ", empty " + Long.toHexString(empty) + "/" + Long.toHexString(mask));
+		}
 	}
 	
 	// adds 2 or 4 tile to a random position on the board
 	protected boolean addRandomTile(){
-		Random random = new Random();
+		return spawnTile() >= 0;
+	}
+
+	// adds a random tile like addRandomTile(), returning its row major
+	// position times 16 plus its exponent, or -1 if the board is full
+	private int spawnTile(){
+		if (empty == 0) return -1;
 		
-		int randint = random.nextInt(10000000) % TILES;
-		int selector = random.nextInt(10000000) % RANDOM_DISTRIBUTION.length;
-		for (int i=0; i<TILES; i++){
-			if (this.emptyAt((randint + i) % TILES)){
-				this.add(new Tile(RANDOM_DISTRIBUTION[selector]), ((randint + i) % TILES) / SIZE, ((randint + i) % TILES) % SIZE);
-				return true;
-			}
-		}
-		return false;
+		long start = Metrics.start();
+		// every empty cell is equally likely, whatever surrounds it
+		int bit = BitBoard.selectBit(empty, random.nextInt(Long.bitCount(empty)));
+		int pos = PACKED ? bit / 4 : bit;
+		int selector = random.nextInt(RANDOM_DISTRIBUTION.length);
+		int exponent = BitBoard.exponentOf(RANDOM_DISTRIBUTION[selector]);
+		setExponent(pos / SIZE, pos % SIZE, exponent);
+		Metrics.stop(Metrics.SPAWN, start);
+		return pos << 4 | exponent;
 	}
 	
 	// removes the tile at a specified position on the board
 	protected void remove(int y, int x){
-		board[y][x] = null;
+		setExponent(y, x, 0);
 	}
 
 	// obtains the number of tiles currently at play on the board
 	protected int tileCount(){
-		int count = 0;
-		for (int i=0; i<TILES; i++){
-			if (!emptyAt(i)) count++;
-		}
-		return count;
-	}
-
-	// shifts all current tiles on the board to the right, if possible, and 
-	// merging when necessary
-	private boolean shiftRight(){
-		boolean[][] mergeBoard = new boolean[SIZE][SIZE];
-		int cur;
-		Tile tile;
-		boolean shifted = false;
-
-		// let x be the index of the current column
-		for (int x=SIZE-2; x>=0; x--){
-			// let y be the index of the current row
-			for (int y=0; y<SIZE; y++){
-
-				// is there an Tile at the current coordinate?
-				if (!emptyAt(y, x)){
-
-					// until there is nolonger somewhere to move the tile
-					for (cur = x; exists(y,cur+1);cur++){
-						// check if we can move it
-						if (emptyAt(y, cur+1)){
-							shifted = true;
-							tile = new Tile(valAt(y,cur));
-							remove(y,cur); // moving consists of deleting
-							add(tile, y, cur+1); // and placing (original object dies, but that is ok)	
-						} else {
-							// there is a tile in the way...
-							// can we merge?
-							if ((valAt(y, cur) == valAt(y, cur+1)) && !(mergeBoard[y][cur+1] || mergeBoard[y][cur])){
-								shifted = true;
-								mergeBoard[y][cur+1] = true; // we can no longer merge again on this square during this shift
-								tile = new Tile(valAt(y, cur) + valAt(y, cur+1)); // new tile, twice as big
-								remove(y, cur); // merging consists of deleting the old tiles
-								add(tile, y, cur+1); // and replacing the right one with the doubled tile
-							}	
-						}
-					}
-				}
-			}
-		}
-		return shifted;
-	}
-
-	// shifts all current tiles on the board to the left, if possible, and 
-	// merging when necessary
-	private boolean shiftLeft(){
-		boolean[][] mergeBoard = new boolean[SIZE][SIZE];
-		int cur;
-		Tile tile;
-		boolean shifted = false;
-		// let x be the index of the current column
-		for (int x=1; x<SIZE; x++){
-			// let y be the index of the current row
-			for (int y=0; y<SIZE; y++){
-				
-				// is there a Tile at the current coordinate?
-				if (!emptyAt(y, x)){
-					
-					// until there is nolonger somewhere to move the tile
-					for (cur = x; exists(y, cur-1); cur--){
-						//check if we can move it
-						if (emptyAt(y, cur-1)){
-							shifted = true;
-							tile = new Tile(valAt(y,cur));
-							remove(y,cur); // moving consists of deleting
-							add(tile, y, cur-1); // and placing (original object dies, but that is ok)
-						} else {
-							if ((valAt(y, cur) == valAt(y, cur-1)) && !(mergeBoard[y][cur-1] || mergeBoard[y][cur])){
-								shifted = true;
-								mergeBoard[y][cur-1] = true; // we can no longer merge again on this square during this shift
-								tile = new Tile(valAt(y, cur) + valAt(y, cur-1)); // new tile, twice as big
-								remove(y, cur); // merging consists of deleting the old tiles
-								add(tile, y, cur-1); // and replacing the right one with the doubled tile.
-							}
-						}
-					}
-				}
-			}
+		return TILES - Long.bitCount(empty);
+	}
+
+	// obtains the packed encoding of the board, see BitBoard
+	// @pre the board is 4x4
+	protected long packedState(){
+		if (!PACKED) throw new IllegalStateException("only 4x4 boards are packed");
+		return packed;
+	}
+
+	// determines how many cells would be empty after shifting in a direction
+	// (one of BitBoard.LEFT, RIGHT, UP, DOWN) without changing the board;
+	// -1 if nothing would move
+	protected int emptyAfterShift(int dir){
+		if (PACKED) {
+			long moved = BitBoard.move(packed, dir);
+			return moved == packed ? -1 : BitBoard.countEmpty(moved);
 		}
-		return shifted;
-	}
-
-	// shifts all current tiles on the board upwards, if possible, and
-	// merging when necessary
-	private boolean shiftUp(){
-		boolean[][] mergeBoard = new boolean[SIZE][SIZE];
-		int cur;
-		Tile tile;
-
-		boolean shifted = false;
-
-		// let x be the index of the current column
-		for (int x=0; x<SIZE; x++){
-			// let y be the index of the current row
-			for (int y=1; y<SIZE; y++){
-			
-				// is there a Tile at the current coordinate?
-				if (!emptyAt(y, x)){
-					
-					// until there is nolonger somewhere to move the tile
-					for (cur = y; exists(cur-1, x); cur--){
-						// check if we can move it
-						if (emptyAt(cur-1, x)){
-							shifted = true;
-							tile = new Tile(valAt(cur, x));
-							remove(cur, x); // moving consists of deleting
-							add(tile, cur-1, x); // and placing (original object dies, but that is ok)
-						} else { 
-							if ((valAt(cur,x) == valAt(cur-1, x)) && !(mergeBoard[cur-1][x] || mergeBoard[cur][x])){
-								shifted = true;
-								mergeBoard[cur-1][x] = true; // we can nolonger merge again on this square during this shift
-								tile = new Tile(valAt(cur, x) + valAt(cur-1, x)); // new tile, twice as big
-								remove(cur, x); // merging consists of deleting the old tiles
-								add(tile, cur-1, x); // and replacing the right one with the doubled tile
-							}
-						}
-					}
-				}
-			}
+		if (scratch == null) scratch = new byte[TILES];
+		System.arraycopy(cells, 0, scratch, 0, TILES);
+		return ByteBoard.move(scratch, SIZE, dir) >= 0 ? ByteBoard.countEmpty(scratch) : -1;
+	}
+
+	// copies the exponents of every cell in row major order into target,
+	// which must hold at least getSize()*getSize() bytes
+	protected void copyCells(byte[] target){
+		if (!PACKED) {
+			System.arraycopy(cells, 0, target, 0, TILES);
+			return;
 		}
-		return shifted;
-	}
-
-	// shifts all current tiles on the board downwards, if possible, and
-	// merging when necessary
-	private boolean shiftDown(){
-		boolean[][] mergeBoard = new boolean[SIZE][SIZE];
-		int cur;
-		Tile tile;
-		boolean shifted = false;
-
-		// let x be the index of the current column
-		for (int x=0; x<SIZE; x++){
-			// let y be the index of the current row
-			for (int y=SIZE-2; y>=0; y--){
-				
-				// is there a Tile at the current coordinate?
-				if (!emptyAt(y, x)){
-					
-					// until there is nolonger somewher to move the tile
-					for (cur = y; exists(cur+1, x); cur++){
-						if (emptyAt(cur+1, x)){
-							shifted = true;
-							tile = new Tile(valAt(cur, x));
-							remove(cur, x); // moving consists of deleting
-							add(tile, cur+1, x); // moving consists of deleting
-						} else {
-							if ((valAt(cur, x) == valAt(cur+1, x)) && !(mergeBoard[cur+1][x] || mergeBoard[cur][x])){
-								shifted = true;
-								mergeBoard[cur+1][x] = true; // we can nolonger merge again on this square during this shift
-								tile = new Tile(valAt(cur, x) + valAt(cur+1, x)); // new tile, twice as big
-								remove(cur, x); // merging consists of deleting the old tiles
-								add(tile, cur+1, x); // and replacing the right one with the doubled tile
-							}
-						}
-					}
-				}
-			}
+		for (int i=0; i<TILES; i++){
+			target[i] = (byte) ((packed >>> (4*i)) & 0xF);
 		}
-		return shifted;
 	}
-	
-	// determines if a specified position is available with the current board's
-	// dimensions
-	private boolean exists(int y, int x){
-		return (y < SIZE && y >= 0 && x < SIZE && x >= 0);
+
+	/**
+	 * Obtains the value of the tile at a position without copying the board
+	 * 
+	 * @return int; value of the tile, 0 if the position is empty
+	 */
+	@Override
+	public int valAt(int y, int x){
+		if (PACKED) return BitBoard.valueOf(BitBoard.get(packed, y, x));
+		return BitBoard.valueOf(cells[y*SIZE + x]);
 	}
 
-	// obtains the value of the tile at a specified position on the board
-	protected int valAt(int y, int x){
-		if (emptyAt(y,x)) {
-			return 0;
+	/**
+	 * Obtains the exponent of the tile at a position without copying the board
+	 * 
+	 * @return int; log2 of the tile's value, 0 if the position is empty
+	 */
+	@Override
+	public int exponentAt(int y, int x){
+		if (PACKED) return BitBoard.get(packed, y, x);
+		return cells[y*SIZE + x];
+	}
+
+	/**
+	 * Obtains a number that changes whenever a tile is shifted, merged,
+	 * added or removed
+	 * 
+	 * @return long; the same as the last call only if the tiles did not change
+	 */
+	@Override
+	public long getVersion(){
+		return version;
+	}
+
+	/**
+	 * Visits every cell in row major order without copying the board
+	 * 
+	 * @param visitor: TileVisitor; called once per cell, empty cells included
+	 */
+	@Override
+	public void forEachTile(TileVisitor visitor){
+		if (!PACKED) {
+			for (int i=0; i<TILES; i++){
+				visitor.visit(i, cells[i]);
+			}
+			return;
+		}
+		long tiles = packed;
+		for (int i=0; i<TILES; i++, tiles >>>= 4){
+			visitor.visit(i, (int) (tiles & 0xF));
 		}
-		return board[y][x].getVal();
 	}
 	
 	// calculates the sum of all current tiles on the board
 	protected int boardValue(){
-		int sum =0;
-		for (int i=0; i<TILES; i++){
-			sum += valAt(i / SIZE, i % SIZE);
-		}
-		return sum;
+		return getScore();
 	}
 	
 }
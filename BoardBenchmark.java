@@ -0,0 +1,166 @@
+/*
+ * File: BoardBenchmark.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class benchmarks the hot paths of Board: update() in every direction,
+ * addRandomTile() on nearly full boards, gameOverCode() on full boards that
+ * can still move and on lost ones, getScore(), and
+ * reading every tile with getBoardState() or in place with exponentAt(), for
+ * every size from 4 to 8. It works like a small JMH
+ * run: every benchmark gets warmup iterations that are thrown away, then
+ * measured iterations that are reported as the mean time per operation with
+ * its standard deviation. Positions come from a fixed seed, so two runs on
+ * the same machine measure exactly the same work.
+ *
+ * Usage: java BoardBenchmark [filter] [seed]
+ *   filter - only run benchmarks whose name contains this text
+ */
+
+import java.util.Random;
+
+
+public class BoardBenchmark {
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int MEASURE_ITERATIONS = 10;
+	private static final int BATCH = 20_000; // operations per iteration
+	private static final int POSITIONS = 64; // distinct positions cycled through
+
+	// results are added here so the JIT cannot drop the benchmarked calls
+	private static volatile long sink;
+
+	/*
+	 * This interface is one benchmarked call on a board; the returned number
+	 * is consumed so the call is not optimized away
+	 */
+	private interface Operation {
+		long run(Board board);
+	}
+
+	// running this prints one line per benchmark and board size
+	public static void main(String[] args){
+		String filter = args.length > 0 ? args[0] : "";
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 2048;
+
+		System.out.println("java " + System.getProperty("java.version") + ", "
+				+ Runtime.getRuntime().availableProcessors() + " cores, seed " + seed);
+		System.out.printf("%-18s %4s %12s %10s%n", "benchmark", "size", "ns/op", "error");
+
+		for (int size=4; size<=8; size++){
+			// a quarter of the cells empty, and nearly full boards with one gap
+			byte[][] midGame = positions(size, seed, size*size / 4);
+			byte[][] nearlyFull = positions(size, seed, 1);
+			// full boards, which make gameOverCode() look for a pair of neighbours
+			byte[][] movable = fullPositions(size, seed, false);
+			byte[][] dead = fullPositions(size, seed, true);
+
+			for (int dir=0; dir<4; dir++){
+				String direction = Board.DIRECTIONS[dir];
+				run(filter, "update " + direction, size, midGame, true, board -> board.update(direction) ? 1 : 0);
+			}
+			run(filter, "addRandomTile", size, nearlyFull, true, board -> board.addRandomTile() ? 1 : 0);
+			// the answer is remembered until the board changes, so every
+			// iteration needs fresh boards
+			run(filter, "gameOverCode", size, movable, true, board -> board.gameOverCode());
+			run(filter, "gameOverCode dead", size, dead, true, board -> board.gameOverCode());
+			run(filter, "getScore", size, midGame, false, board -> board.getScore());
+			run(filter, "getBoardState", size, midGame, false, board -> board.getBoardState().length);
+			run(filter, "exponentAt", size, midGame, false, BoardBenchmark::sumExponents);
+		}
+	}
+
+	// reads every tile in place, as a renderer or evaluator would
+	private static long sumExponents(Board board){
+		int size = board.getSize();
+		long sum = 0;
+		for (int y=0; y<size; y++){
+			for (int x=0; x<size; x++){
+				sum += board.exponentAt(y, x);
+			}
+		}
+		return sum;
+	}
+
+	// warms up and measures one benchmark, then prints its line
+	private static void run(String filter, String name, int size, byte[][] positions, boolean mutates, Operation op){
+		if (!name.contains(filter)) return;
+
+		Board[] boards = boards(size, positions);
+		double[] nanosPerOp = new double[MEASURE_ITERATIONS];
+		for (int i=0; i<WARMUP_ITERATIONS + MEASURE_ITERATIONS; i++){
+			// operations that change the board get fresh copies, built untimed
+			if (mutates && i > 0) boards = boards(size, positions);
+			long result = 0;
+			long start = System.nanoTime();
+			for (int k=0; k<BATCH; k++){
+				result += op.run(boards[k]);
+			}
+			long elapsed = System.nanoTime() - start;
+			sink += result;
+			if (i >= WARMUP_ITERATIONS) nanosPerOp[i - WARMUP_ITERATIONS] = (double) elapsed / BATCH;
+		}
+
+		double mean = 0;
+		for (double value : nanosPerOp) mean += value;
+		mean /= MEASURE_ITERATIONS;
+		double variance = 0;
+		for (double value : nanosPerOp) variance += (value - mean) * (value - mean);
+		double deviation = Math.sqrt(variance / (MEASURE_ITERATIONS - 1));
+		System.out.printf("%-18s %4d %12.1f %10.1f%n", name, size, mean, deviation);
+	}
+
+	// lays the positions out over BATCH boards, cycling through them
+	private static Board[] boards(int size, byte[][] positions){
+		Board[] boards = new Board[BATCH];
+		for (int k=0; k<BATCH; k++){
+			Board board = new Board(size, k);
+			byte[] cells = positions[k % POSITIONS];
+			for (int i=0; i<cells.length; i++){
+				board.add(cells[i] == 0 ? null : new Tile(BitBoard.valueOf(cells[i])), i / size, i % size);
+			}
+			boards[k] = board;
+		}
+		return boards;
+	}
+
+	// seeded positions with the given number of empty cells and tiles from 2
+	// to 1024, so no board has already been won
+	private static byte[][] positions(int size, long seed, int empty){
+		Random random = new Random(seed + 31L*size + empty);
+		byte[][] positions = new byte[POSITIONS][size*size];
+		for (byte[] cells : positions){
+			for (int i=0; i<cells.length; i++){
+				cells[i] = (byte) (1 + random.nextInt(10));
+			}
+			for (int gaps=0; gaps<empty; ){
+				int i = random.nextInt(cells.length);
+				if (cells[i] != 0) {
+					cells[i] = 0;
+					gaps++;
+				}
+			}
+		}
+		return positions;
+	}
+
+	// seeded full positions with tiles from 2 to 1024; dead ones have no two
+	// neighbours alike, the others have at least one pair that merges
+	private static byte[][] fullPositions(int size, long seed, boolean dead){
+		Random random = new Random(seed + 31L*size + (dead ? 1 : 2));
+		byte[][] positions = new byte[POSITIONS][size*size];
+		for (byte[] cells : positions){
+			for (int i=0; i<cells.length; i++){
+				int exponent;
+				do {
+					exponent = 1 + random.nextInt(10);
+				} while (dead && ((i % size > 0 && cells[i-1] == exponent) || (i >= size && cells[i-size] == exponent)));
+				cells[i] = (byte) exponent;
+			}
+			if (!dead) {
+				// a random pair somewhere on the board, so the search stops at different places
+				int i = random.nextInt(cells.length - size);
+				cells[i + size] = cells[i];
+			}
+		}
+		return positions;
+	}
+}
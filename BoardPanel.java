@@ -0,0 +1,136 @@
+/*
+ * File: BoardPanel.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class draws the game board as a single component. Each tile value is
+ * drawn once into a small image the first time it appears, coloured from a
+ * palette indexed by the tile's exponent; the board itself is kept in an
+ * off-screen image, and showing a new position copies the images of only the
+ * cells that changed into it and repaints just the area around them. A move
+ * on an 8x8 board, or thousands of them a second from an AI or a replay,
+ * costs a few image copies rather than relaying out a grid of labels.
+ */
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import javax.swing.JPanel;
+
+
+@SuppressWarnings("serial") // never serialized, like the rest of the GUI
+public class BoardPanel extends JPanel {
+	private static final int EXPONENTS = Integer.SIZE - 1; // tiles up to 2^30
+	private static final Color[] PALETTE = new Color[EXPONENTS]; // tile colour by exponent
+	private static final Color BORDER = Color.DARK_GRAY;
+	private static final Font FONT = new Font("Impact", Font.PLAIN, 24);
+	static {
+		for (int i=0; i<EXPONENTS; i++){
+			// darker for bigger tiles, as the labels were, stopping at black
+			PALETTE[i] = new Color(Math.max(0, 250 - 10*i), Math.max(0, 230 - 10*i), Math.max(0, 210 - 10*i));
+		}
+	}
+
+	private final int size;
+	private final int cellSize;
+	private final BufferedImage[] glyphs = new BufferedImage[EXPONENTS]; // tile images by exponent, made on first use
+	private final BufferedImage buffer; // the whole board as last shown
+	private final byte[] shown; // row major exponents in buffer, -1 before the first position
+
+	/*
+	 * Constructor for an empty board
+	 * @param size - the number of tiles per row/column
+	 * @param cellSize - the width and height of a tile in pixels
+	 */
+	public BoardPanel(int size, int cellSize){
+		this.size = size;
+		this.cellSize = cellSize;
+		this.buffer = new BufferedImage(size*cellSize, size*cellSize, BufferedImage.TYPE_INT_RGB);
+		this.shown = new byte[size*size];
+		Arrays.fill(shown, (byte) -1);
+		setOpaque(true);
+		setPreferredSize(new Dimension(size*cellSize, size*cellSize));
+		setSize(size*cellSize, size*cellSize);
+	}
+
+	/**
+	 * Shows a position, redrawing only the tiles that differ from the
+	 * position shown before
+	 *
+	 * @param board: ReadOnlyBoard; a board or snapshot of this panel's size,
+	 * read in place
+	 * @return int; the number of tiles redrawn
+	 */
+	public int show(ReadOnlyBoard board){
+		if (board.getSize() != size) throw new IllegalArgumentException("board is " + board.getSize() + "x" + board.getSize()
+				+ ", panel is " + size + "x" + size);
+		Rectangle dirty = null;
+		int changed = 0;
+		Graphics g = buffer.getGraphics();
+		try {
+			for (int y=0; y<size; y++){
+				for (int x=0; x<size; x++){
+					int exponent = board.exponentAt(y, x);
+					if (shown[y*size + x] == exponent) continue;
+					shown[y*size + x] = (byte) exponent;
+					g.drawImage(glyph(exponent), x*cellSize, y*cellSize, null);
+					Rectangle cell = new Rectangle(x*cellSize, y*cellSize, cellSize, cellSize);
+					dirty = dirty == null ? cell : dirty.union(cell);
+					changed++;
+				}
+			}
+		} finally {
+			g.dispose();
+		}
+		if (dirty != null) repaint(dirty);
+		return changed;
+	}
+
+	/**
+	 * Obtains the dimensions of the board drawn
+	 *
+	 * @return int; the number of tiles per row/column
+	 */
+	public int getBoardSize(){
+		return size;
+	}
+
+	@Override
+	protected void paintComponent(Graphics g){
+		// Swing clips g to the area asked for, so only that part is copied
+		g.drawImage(buffer, 0, 0, null);
+	}
+
+	// the image of a tile, drawn the first time its value is shown
+	private BufferedImage glyph(int exponent){
+		if (glyphs[exponent] != null) return glyphs[exponent];
+		BufferedImage glyph = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = glyph.createGraphics();
+		try {
+			g.setColor(PALETTE[exponent]);
+			g.fillRect(0, 0, cellSize, cellSize);
+			g.setColor(BORDER);
+			g.drawRect(0, 0, cellSize - 1, cellSize - 1);
+			if (exponent != 0) {
+				String text = Integer.toString(BitBoard.valueOf(exponent));
+				g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+				g.setFont(FONT);
+				g.setColor(Color.BLACK);
+				FontMetrics metrics = g.getFontMetrics();
+				g.drawString(text, (cellSize - metrics.stringWidth(text)) / 2,
+						(cellSize - metrics.getHeight()) / 2 + metrics.getAscent());
+			}
+		} finally {
+			g.dispose();
+		}
+		glyphs[exponent] = glyph;
+		return glyph;
+	}
+}
@@ -0,0 +1,28 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoardPanelTest {
+
+	@Test
+	public void testRedrawsOnlyChangedTiles() {
+		for (int size = 4; size <= 8; size += 4) {
+			Board board = new Board(size, 11L);
+			BoardPanel panel = new BoardPanel(size, 20);
+			assertEquals("The first position draws every tile", size * size, panel.show(board.snapshot()));
+			assertEquals("An unchanged position draws nothing", 0, panel.show(board.snapshot()));
+
+			BoardSnapshot before = board.snapshot();
+			int direction = BitBoard.LEFT;
+			while (!MoveResult.changed(board.move(direction, true))) {
+				direction++;
+			}
+			BoardSnapshot after = board.snapshot();
+			int changed = 0;
+			for (int i = 0; i < size * size; i++) {
+				if (before.valAt(i / size, i % size) != after.valAt(i / size, i % size)) changed++;
+			}
+			assertEquals(changed, panel.show(after));
+		}
+	}
+}
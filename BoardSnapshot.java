@@ -0,0 +1,152 @@
+/*
+ * File: BoardSnapshot.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is an immutable copy of the tiles of a board at one point of
+ * the game. A 4x4 snapshot is a single packed long (see BitBoard) and a larger
+ * one holds its own byte per cell (see ByteBoard), so taking one is a single
+ * small allocation rather than a Tile[][] copy. Snapshots can be shifted into
+ * new snapshots to explore moves without touching the board they came from.
+ */
+
+import java.util.Arrays;
+
+
+public final class BoardSnapshot implements ReadOnlyBoard {
+	private final int size;
+	private final long packed; // the tiles of a 4x4 snapshot
+	private final byte[] cells; // the tiles of a larger snapshot, null for 4x4, never shared
+	private final long version; // of the board it was taken from, -1 if it was not
+
+	/*
+	 * Constructor for a 4x4 snapshot
+	 * @param packed - the tiles in the layout of BitBoard
+	 */
+	BoardSnapshot(long packed){
+		this(packed, -1);
+	}
+
+	/*
+	 * Constructor for a 4x4 snapshot of a board
+	 * @param packed - the tiles in the layout of BitBoard
+	 * @param version - the board's version when it was taken
+	 */
+	BoardSnapshot(long packed, long version){
+		this.size = BitBoard.SIZE;
+		this.packed = packed;
+		this.cells = null;
+		this.version = version;
+	}
+
+	/*
+	 * Constructor for a larger snapshot
+	 * @param size - size between 5 - 8
+	 * @param cells - row major exponents, owned by the snapshot from now on
+	 */
+	BoardSnapshot(int size, byte[] cells){
+		this(size, cells, -1);
+	}
+
+	/*
+	 * Constructor for a larger snapshot of a board
+	 * @param size - size between 5 - 8
+	 * @param cells - row major exponents, owned by the snapshot from now on
+	 * @param version - the board's version when it was taken
+	 */
+	BoardSnapshot(int size, byte[] cells, long version){
+		this.size = size;
+		this.packed = 0;
+		this.cells = cells;
+		this.version = version;
+	}
+
+	/**
+	 * Obtains the dimensions of the board
+	 *
+	 * @return int; represents the number of tiles per row/column
+	 */
+	@Override
+	public int getSize(){
+		return size;
+	}
+
+	/**
+	 * Obtains the value of the tile at a position
+	 *
+	 * @return int; value of the tile, 0 if the position is empty
+	 */
+	@Override
+	public int valAt(int y, int x){
+		if (cells == null) return BitBoard.valueOf(BitBoard.get(packed, y, x));
+		return BitBoard.valueOf(cells[y*size + x]);
+	}
+
+	/**
+	 * Obtains the exponent of the tile at a position
+	 *
+	 * @return int; log2 of the tile's value, 0 if the position is empty
+	 */
+	@Override
+	public int exponentAt(int y, int x){
+		if (cells == null) return BitBoard.get(packed, y, x);
+		return cells[y*size + x];
+	}
+
+	/**
+	 * Obtains the version of the board the snapshot was taken from
+	 *
+	 * @return long; Board.getVersion() when it was taken, -1 for a snapshot
+	 * made by after() or by hand
+	 */
+	@Override
+	public long getVersion(){
+		return version;
+	}
+
+	/**
+	 * Obtains the score of the snapshot, as in Board.getScore()
+	 *
+	 * @return int; the sum of all tiles
+	 */
+	public int getScore(){
+		return cells == null ? BitBoard.sum(packed) : ByteBoard.sum(cells);
+	}
+
+	/**
+	 * Shifts the tiles in a direction without adding a new tile
+	 *
+	 * @pre direction is one of BitBoard.LEFT, RIGHT, UP or DOWN
+	 * @return BoardSnapshot; the shifted position, or this snapshot if
+	 * nothing moved
+	 */
+	public BoardSnapshot after(int direction){
+		if (cells == null) {
+			long moved = BitBoard.move(packed, direction);
+			return moved == packed ? this : new BoardSnapshot(moved);
+		}
+		byte[] moved = cells.clone();
+		return ByteBoard.move(moved, size, direction) < 0 ? this : new BoardSnapshot(size, moved);
+	}
+
+	// obtains the packed tiles of a 4x4 snapshot
+	long packed(){
+		return packed;
+	}
+
+	// copies the row major exponents of a larger snapshot into target
+	void copyCells(byte[] target){
+		System.arraycopy(cells, 0, target, 0, cells.length);
+	}
+
+	@Override
+	public boolean equals(Object other){
+		if (!(other instanceof BoardSnapshot)) return false;
+		BoardSnapshot that = (BoardSnapshot) other;
+		return size == that.size && packed == that.packed && Arrays.equals(cells, that.cells);
+	}
+
+	@Override
+	public int hashCode(){
+		return cells == null ? Long.hashCode(packed) : Arrays.hashCode(cells);
+	}
+}
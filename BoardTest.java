@@ -48,6 +48,31 @@ public class BoardTest {
         assertFalse("Should not be able to add a tile to a full board", testBoard.addRandomTile());
     }
 
+    @Test
+    public void testAddRandomTileUniform() {
+    	int[] hits = new int[16];
+    	for (int trial = 0; trial < 4000; trial++) {
+    		testBoard = new Board(4, trial);
+    		// leave cells 0, 1, 2 and 15 empty; the old probing favoured cell 0
+    		for (int i = 3; i < 15; i++) {
+    			testBoard.add(new Tile(2), i / 4, i % 4);
+    		}
+    		testBoard.remove(0, 0);
+    		testBoard.remove(0, 1);
+    		testBoard.remove(0, 2);
+    		testBoard.remove(3, 3);
+    		
+    		assertTrue("Should be able to add a tile", testBoard.addRandomTile());
+    		for (int i : new int[] {0, 1, 2, 15}) {
+    			if (!testBoard.emptyAt(i)) hits[i]++;
+    		}
+    	}
+    	
+    	for (int i : new int[] {0, 1, 2, 15}) {
+    		assertTrue("Each empty cell should get about a quarter of the tiles", hits[i] > 850 && hits[i] < 1150);
+    	}
+    }
+
     @Test
     public void testEmptyAt() {
     	// initialize an empty board
@@ -179,6 +204,175 @@ public class BoardTest {
         assertEquals("Tile at (3, 0) should be 4 after merging", 4, testBoard.valAt(3, 0));
     }
 
+    @Test
+    public void testShiftRight8by8() {
+    	// initialize empty board
+    	testBoard = new Board(8);
+		for (int row = 0; row < testBoard.getSize(); row++) {
+			for (int col = 0; col < testBoard.getSize(); col++) {
+				if (!testBoard.emptyAt(col, row)) {
+					testBoard.remove(col, row);
+				}
+			}
+		}
+		
+		testBoard.add(new Tile(2), 0, 0);
+		testBoard.add(new Tile(2), 0, 3);
+		testBoard.add(new Tile(4), 0, 5);
+		testBoard.add(new Tile(4), 7, 1);
+		
+        assertTrue("Shift right should merge tiles", testBoard.update("right"));
+        assertEquals("Tile at (0, 7) should be 4 after shifting", 4, testBoard.valAt(0, 7));
+        assertEquals("Tile at (0, 6) should be 4 after merging", 4, testBoard.valAt(0, 6));
+        assertEquals("Tile at (7, 7) should be 4 after shifting", 4, testBoard.valAt(7, 7));
+    }
+
+    @Test
+    public void testSeededBoardsMatch() {
+    	Board first = new Board(5, 42L);
+    	Board second = new Board(5, 42L);
+    	String[] moves = {"left", "up", "right", "down"};
+    	
+    	for (int i = 0; i < 40; i++) {
+    		assertEquals("Seeded boards should make the same moves", first.update(moves[i % 4]), second.update(moves[i % 4]));
+    	}
+    	for (int i = 0; i < 25; i++) {
+    		assertEquals("Seeded boards should place the same tiles", first.valAt(i / 5, i % 5), second.valAt(i / 5, i % 5));
+    	}
+    }
+
+    @Test
+    public void testTrackedStateMatchesRescan() {
+    	Board.setDebugChecks(true);
+    	try {
+    		// every query below throws if the tracked values drift from the board
+    		for (int size = 4; size <= 8; size++) {
+    			testBoard = new Board(size, size);
+    			GreedyPlayer player = new GreedyPlayer();
+    			while (testBoard.gameOverCode() == 0) {
+    				testBoard.update(Board.DIRECTIONS[player.chooseMove(testBoard)]);
+    				testBoard.getScore();
+    				testBoard.getMaxTile();
+    			}
+    			testBoard.remove(0, 0);
+    			testBoard.add(new Tile(2048), 1, 1);
+    			assertEquals("Board with a 2048 tile should be won", 1, testBoard.gameOverCode());
+    		}
+    	} finally {
+    		Board.setDebugChecks(false);
+    	}
+    }
+
+    @Test
+    public void testMoveResult() {
+    	for (int size = 4; size <= 5; size++) {
+    		testBoard = new Board(size, 7);
+    		for (int row = 0; row < size; row++) {
+    			for (int col = 0; col < size; col++) {
+    				testBoard.remove(row, col);
+    			}
+    		}
+    		testBoard.add(new Tile(2), 0, 0);
+    		testBoard.add(new Tile(2), 0, 1);
+    		testBoard.add(new Tile(8), 0, 2);
+    		testBoard.add(new Tile(8), 0, 3);
+
+    		assertEquals("Nothing can slide up", MoveResult.NONE, testBoard.move(BitBoard.UP, true));
+
+    		long result = testBoard.move(BitBoard.LEFT, false);
+    		assertTrue(MoveResult.changed(result));
+    		assertEquals("Two pairs should merge", 2, MoveResult.merges(result));
+    		assertEquals("Merged 4 and 16", 20, MoveResult.mergeScore(result));
+    		assertFalse("No tile should be added", MoveResult.spawned(result));
+    		assertEquals(2, testBoard.tileCount());
+    		assertEquals(16, testBoard.valAt(0, 1));
+
+    		result = testBoard.move(BitBoard.RIGHT, true);
+    		assertEquals(0, MoveResult.merges(result));
+    		int cell = MoveResult.spawnCell(result);
+    		assertEquals("Spawned tile should be on the board", MoveResult.spawnValue(result),
+    				testBoard.valAt(cell / size, cell % size));
+    		assertEquals(20, testBoard.getScore() - MoveResult.spawnValue(result));
+    	}
+    }
+
+    @Test
+    public void testTileFlyweight() {
+    	assertSame("Equal powers of two should share a tile", Tile.of(2048), Tile.of(2048));
+    	assertSame(Tile.of(1 << 20), Tile.of(1 << 20));
+    	assertSame("2^0 should be shared too", Tile.of(1), Tile.of(1));
+    	assertEquals(1, Tile.of(1).getVal());
+    	assertEquals(1 << 25, Tile.of(1 << 25).getVal());
+    	assertEquals(0, Tile.of(0).getVal());
+    	assertEquals("Other values still make tiles", 3, Tile.of(3).getVal());
+
+    	testBoard = new Board(4, 3L);
+    	Tile[][] state = testBoard.getBoardState();
+    	for (int i = 0; i < 16; i++) {
+    		assertSame(Tile.of(testBoard.valAt(i / 4, i % 4)), state[i / 4][i % 4]);
+    	}
+    }
+
+    @Test
+    public void testReadOnlyView() {
+    	for (int size = 4; size <= 5; size++) {
+    		testBoard = new Board(size, 9L);
+    		long version = testBoard.getVersion();
+    		assertEquals(version, testBoard.snapshot().getVersion());
+    		int direction = BitBoard.LEFT;
+    		while (!MoveResult.changed(testBoard.move(direction, true))) {
+    			assertEquals("A move that changes nothing keeps the version", version, testBoard.getVersion());
+    			direction++;
+    		}
+    		assertNotEquals(version, testBoard.getVersion());
+    		version = testBoard.getVersion();
+    		testBoard.getScore();
+    		testBoard.gameOverCode();
+    		assertEquals("Reading the board keeps the version", version, testBoard.getVersion());
+
+    		int finalSize = size;
+    		int[] visited = {0};
+    		testBoard.forEachTile((cell, exponent) -> {
+    			assertEquals(testBoard.valAt(cell / finalSize, cell % finalSize), BitBoard.valueOf(exponent));
+    			visited[0]++;
+    		});
+    		assertEquals(size * size, visited[0]);
+    		ReadOnlyBoard snapshot = testBoard.snapshot();
+    		for (int i = 0; i < size * size; i++) {
+    			assertEquals(testBoard.exponentAt(i / size, i % size), snapshot.exponentAt(i / size, i % size));
+    		}
+    	}
+    }
+
+    @Test
+    public void testUndoRedo() {
+    	for (int size = 4; size <= 6; size += 2) {
+    		testBoard = new Board(size, 3);
+    		testBoard.setUndoLevels(2);
+    		BoardSnapshot start = testBoard.snapshot();
+    		GreedyPlayer player = new GreedyPlayer();
+    		testBoard.move(player.chooseMove(testBoard), true);
+    		BoardSnapshot first = testBoard.snapshot();
+    		testBoard.move(player.chooseMove(testBoard), true);
+    		testBoard.move(player.chooseMove(testBoard), true);
+    		BoardSnapshot third = testBoard.snapshot();
+
+    		assertTrue(testBoard.undo());
+    		assertTrue(testBoard.undo());
+    		assertFalse("Only two levels are kept", testBoard.undo());
+    		assertEquals(first, testBoard.snapshot());
+    		assertEquals(first.getScore(), testBoard.getScore());
+    		assertTrue(testBoard.redo());
+    		assertTrue(testBoard.redo());
+    		assertFalse(testBoard.redo());
+    		assertEquals(third, testBoard.snapshot());
+
+    		testBoard.restore(start);
+    		assertEquals(start, testBoard.snapshot());
+    		assertEquals(2, testBoard.tileCount());
+    	}
+    }
+
     @Test
     public void testRemove() {
     	// initialize empty board
@@ -0,0 +1,150 @@
+/*
+ * File: ByteBoard.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class holds the static operations for boards larger than 4x4. Such a
+ * board is a byte[] of SIZE*SIZE log2 exponents in row major order (0 means
+ * the cell is empty), so cell (y, x) is at index y*SIZE + x. Moves slide the
+ * tiles in place and never allocate.
+ */
+
+
+public final class ByteBoard {
+	public static final int MAX_EXPONENT = 30; // keeps every tile value inside an int
+
+	// no instances, this class only groups static helpers
+	private ByteBoard(){
+	}
+
+	/**
+	 * Slides the tiles of the board in place in the given direction, merging
+	 * like tiles
+	 *
+	 * @pre direction is one of BitBoard.LEFT, RIGHT, UP or DOWN
+	 * @param cells: byte[]; exponents of a size*size board
+	 * @param size: int; the number of tiles per row/column
+	 * @return long; -1 if no tile moved or merged, otherwise the sum of the
+	 * values of the tiles created by merges (0 for a slide without merges)
+	 */
+	public static long move(byte[] cells, int size, int direction){
+		long score = -1;
+		for (int line=0; line<size; line++){
+			long lineScore;
+			switch (direction){
+				case BitBoard.LEFT:
+					lineScore = slideLine(cells, line*size, 1, size);
+					break;
+				case BitBoard.RIGHT:
+					lineScore = slideLine(cells, line*size + size - 1, -1, size);
+					break;
+				case BitBoard.UP:
+					lineScore = slideLine(cells, line, size, size);
+					break;
+				default:
+					lineScore = slideLine(cells, (size - 1)*size + line, -size, size);
+					break;
+			}
+			if (lineScore >= 0) score = Math.max(score, 0) + lineScore;
+		}
+		return score;
+	}
+
+	/**
+	 * Counts the empty cells on the board
+	 *
+	 * @return int; number of cells that are 0
+	 */
+	public static int countEmpty(byte[] cells){
+		int count = 0;
+		for (byte e : cells){
+			if (e == 0) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Marks the empty cells of the board
+	 *
+	 * @pre cells.length <= 64
+	 * @return long; bit i is set when cell i is empty
+	 */
+	public static long emptyMask(byte[] cells){
+		long mask = 0;
+		for (int i=0; i<cells.length; i++){
+			if (cells[i] == 0) mask |= 1L << i;
+		}
+		return mask;
+	}
+
+	/**
+	 * Determines whether any of the four moves would change the board
+	 *
+	 * @return boolean; true if there is an empty cell or two adjacent equal tiles
+	 */
+	public static boolean canMove(byte[] cells, int size){
+		for (int y=0; y<size; y++){
+			for (int x=0; x<size; x++){
+				byte e = cells[y*size + x];
+				if (e == 0) return true;
+				if (x+1 < size && cells[y*size + x + 1] == e && e < MAX_EXPONENT) return true;
+				if (y+1 < size && cells[(y+1)*size + x] == e && e < MAX_EXPONENT) return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether a tile with the given exponent is on the board
+	 *
+	 * @return boolean; true if some cell holds exactly that exponent
+	 */
+	public static boolean contains(byte[] cells, int exponent){
+		for (byte e : cells){
+			if (e == exponent) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sums the values of all tiles on the board
+	 *
+	 * @return int; the total of 2^exponent over all non-empty cells
+	 */
+	public static int sum(byte[] cells){
+		int sum = 0;
+		for (byte e : cells){
+			sum += BitBoard.valueOf(e);
+		}
+		return sum;
+	}
+
+	// slides one row or column towards the cell at start; step is the index
+	// distance between neighbouring cells, walking away from that edge; returns
+	// -1 if the line did not change, otherwise its merge score
+	private static long slideLine(byte[] cells, int start, int step, int size){
+		boolean changed = false;
+		long score = 0;
+		int out = start; // next free cell at the front of the line
+		int last = -1; // last placed tile that may still take a merge
+		for (int k=0, i=start; k<size; k++, i+=step){
+			byte e = cells[i];
+			if (e == 0) continue;
+			if (last >= 0 && cells[last] == e && e < MAX_EXPONENT){
+				cells[last] = (byte) (e + 1); // merged tile, twice as big
+				cells[i] = 0;
+				score += BitBoard.valueOf(e + 1);
+				last = -1; // we can no longer merge again on this square during this shift
+				changed = true;
+			} else {
+				if (i != out){
+					cells[out] = e;
+					cells[i] = 0;
+					changed = true;
+				}
+				last = out;
+				out += step;
+			}
+		}
+		return changed ? score : -1;
+	}
+}
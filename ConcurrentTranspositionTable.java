@@ -0,0 +1,89 @@
+/*
+ * File: ConcurrentTranspositionTable.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is a TranspositionTable that several search threads can share.
+ * Rather than one lock for the whole table, the buckets are split into
+ * stripes that each have their own lock, so threads only wait on each other
+ * when they touch the same stripe at the same time.
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+public class ConcurrentTranspositionTable extends TranspositionTable {
+	private static final int STRIPES = 256;
+
+	private final Object[] locks = new Object[STRIPES];
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/*
+	 * Constructor for a shared table with 2^capacityBits slots
+	 * @param capacityBits - between 1 and 30
+	 */
+	public ConcurrentTranspositionTable(int capacityBits){
+		super(capacityBits);
+		for (int i=0; i<STRIPES; i++){
+			locks[i] = new Object();
+		}
+	}
+
+	@Override
+	public double get(long board, int depth){
+		synchronized (lockFor(board)) {
+			return super.get(board, depth);
+		}
+	}
+
+	@Override
+	public void put(long board, int depth, double value){
+		synchronized (lockFor(board)) {
+			super.put(board, depth, value);
+		}
+	}
+
+	@Override
+	public void clear(){
+		// take every stripe so no search writes into the table while it is wiped
+		clearStripe(0);
+		hits.reset();
+		misses.reset();
+	}
+
+	@Override
+	public long getHits(){
+		return hits.sum();
+	}
+
+	@Override
+	public long getMisses(){
+		return misses.sum();
+	}
+
+	@Override
+	protected void countHit(){
+		hits.increment();
+	}
+
+	@Override
+	protected void countMiss(){
+		misses.increment();
+	}
+
+	// a whole bucket always falls in the same stripe
+	private Object lockFor(long board){
+		return locks[(bucketOf(board) / BUCKET) & (STRIPES - 1)];
+	}
+
+	// locks the stripes one after another, then clears the table with all held
+	private void clearStripe(int stripe){
+		if (stripe == STRIPES) {
+			super.clear();
+			return;
+		}
+		synchronized (locks[stripe]) {
+			clearStripe(stripe + 1);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * File: ExpectimaxPlayer.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is an automated player that searches ahead with expectimax. The
+ * player's own moves are max nodes, and the tile the board adds after every
+ * move is a chance node that averages over each empty cell and over a 2 or a
+ * 4 with the odds of Board.RANDOM_DISTRIBUTION. Values of chance nodes are
+ * kept in a TranspositionTable. Positions at the end of the search are
+ * scored by a HeuristicEvaluator. The search works on the packed form of the
+ * board, so only 4x4 boards are supported.
+ */
+
+
+public class ExpectimaxPlayer implements Player {
+	// chance of the board spawning a 2, the rest of the time it spawns a 4
+	protected static final double PROBABILITY_TWO;
+	// branches less likely than this are evaluated instead of searched
+	private static final double MIN_PROBABILITY = 0.0001;
+	private static final int CLOCK_CHECK_INTERVAL = 1024; // nodes between deadline checks
+
+	static {
+		int twos = 0;
+		for (int value : Board.RANDOM_DISTRIBUTION) {
+			if (value == 2) twos++;
+		}
+		PROBABILITY_TWO = (double) twos / Board.RANDOM_DISTRIBUTION.length;
+	}
+
+	protected final int maxDepth;
+	protected final long timeBudgetNanos;
+	protected final TranspositionTable table;
+	protected final HeuristicEvaluator evaluator;
+	// value of a board with no moves, below anything the evaluator gives and
+	// never above 0
+	protected final double lost;
+	private long deadline;
+	private boolean timedOut;
+	private int nodes;
+
+	/*
+	 * Constructor for a player that always searches to a fixed depth
+	 * @param depth - number of player moves to look ahead, at least 1
+	 */
+	public ExpectimaxPlayer(int depth){
+		this(depth, 0, new TranspositionTable(20));
+	}
+
+	/*
+	 * Constructor for a player with a depth limit and a time budget per move;
+	 * with a budget the search deepens one level at a time until the budget
+	 * runs out and plays the deepest move it finished
+	 * @param maxDepth - number of player moves to look ahead at most
+	 * @param timeBudgetMillis - time allowed per move, 0 for no limit
+	 * @param table - cache shared by every move this player makes
+	 */
+	public ExpectimaxPlayer(int maxDepth, long timeBudgetMillis, TranspositionTable table){
+		this(maxDepth, timeBudgetMillis, table, HeuristicEvaluator.defaults());
+	}
+
+	/*
+	 * Constructor for a player scoring positions with its own heuristics
+	 * @param maxDepth - number of player moves to look ahead at most
+	 * @param timeBudgetMillis - time allowed per move, 0 for no limit
+	 * @param table - cache shared by every move this player makes, only to be
+	 * shared with players using the same evaluator
+	 * @param evaluator - scores the positions where the search stops
+	 */
+	public ExpectimaxPlayer(int maxDepth, long timeBudgetMillis, TranspositionTable table, HeuristicEvaluator evaluator){
+		if (maxDepth < 1) {
+			throw new IllegalArgumentException("depth must be at least 1");
+		}
+		this.maxDepth = maxDepth;
+		this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+		this.table = table;
+		this.evaluator = evaluator;
+		this.lost = Math.min(0, evaluator.getLowest()) - 1;
+	}
+
+	/**
+	 * Chooses the move with the best expected outcome
+	 *
+	 * @pre board.getSize() == 4
+	 * @return int; one of BitBoard.LEFT, RIGHT, UP or DOWN, or -1 if no move
+	 * changes the board
+	 */
+	@Override
+	public int chooseMove(Board board){
+		return chooseMove(board.packedState());
+	}
+
+	/**
+	 * Chooses the move with the best expected outcome for a packed board
+	 *
+	 * @return int; a BitBoard direction, or -1 if no move changes the board
+	 */
+	public int chooseMove(long board){
+		// values depend on the depth left, so entries from the last move are
+		// still valid; only the per move state is reset
+		beginSearch(System.nanoTime() + timeBudgetNanos);
+		if (timeBudgetNanos <= 0) {
+			return searchRoot(board, maxDepth);
+		}
+
+		int best = searchRoot(board, 1); // depth 1 always finishes
+		for (int depth=2; depth<=maxDepth; depth++){
+			int move = searchRoot(board, depth);
+			if (isTimedOut()) break;
+			best = move;
+		}
+		return best;
+	}
+
+	// tries every move from the root and keeps the one with the best value;
+	// the root move is the first of the depth moves looked at, so a depth of 1
+	// only scores the board each move leaves
+	protected int searchRoot(long board, int depth){
+		int bestMove = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int dir=0; dir<4; dir++){
+			long moved = BitBoard.move(board, dir);
+			if (moved == board) continue;
+			double value = chanceNode(moved, depth - 1, 1.0);
+			if (value > bestValue) {
+				bestValue = value;
+				bestMove = dir;
+			}
+		}
+		return bestMove;
+	}
+
+	// the player picks the best move; a board with no moves is worth less
+	// than any board the evaluator scores
+	protected double maxNode(long board, int depth, double probability){
+		double best = lost;
+		for (int dir=0; dir<4; dir++){
+			long moved = BitBoard.move(board, dir);
+			if (moved == board) continue;
+			best = Math.max(best, chanceNode(moved, depth - 1, probability));
+		}
+		return best;
+	}
+
+	// the board adds a 2 or a 4 to any empty cell, each with its own odds
+	protected double chanceNode(long board, int depth, double probability){
+		if (depth <= 0 || probability < MIN_PROBABILITY) {
+			return evaluate(board);
+		}
+		if (outOfTime()) return 0;
+
+		double cached = table.get(board, depth);
+		if (!Double.isNaN(cached)) return cached;
+
+		int empty = BitBoard.countEmpty(board);
+		double twoOdds = probability * PROBABILITY_TWO / empty;
+		double fourOdds = probability * (1 - PROBABILITY_TWO) / empty;
+		double sum = 0;
+		for (int i=0; i<BitBoard.TILES; i++){
+			if (((board >>> (4*i)) & 0xF) != 0) continue;
+			sum += PROBABILITY_TWO * maxNode(board | (1L << (4*i)), depth, twoOdds);
+			sum += (1 - PROBABILITY_TWO) * maxNode(board | (2L << (4*i)), depth, fourOdds);
+		}
+		double value = sum / empty;
+
+		// a search cut short would poison the table with a partial value
+		if (!timedOut) table.put(board, depth, value);
+		return value;
+	}
+
+	// scores a position with the evaluator's row and column tables
+	protected double evaluate(long board){
+		return evaluator.evaluate(board);
+	}
+
+	// resets the per move state before searching; the deadline is only
+	// used when the player has a time budget
+	protected void beginSearch(long deadlineNanos){
+		deadline = deadlineNanos;
+		timedOut = false;
+		nodes = 0;
+	}
+
+	// whether the current search ran past its deadline, making its result partial
+	protected boolean isTimedOut(){
+		return timedOut;
+	}
+
+	// checks the clock every so often once a time budget is in place
+	private boolean outOfTime(){
+		if (timedOut) return true;
+		if (timeBudgetNanos > 0 && ++nodes % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+			timedOut = true;
+		}
+		return timedOut;
+	}
+}
@@ -0,0 +1,174 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+public class ExpectimaxPlayerTest {
+	private Board testBoard;
+
+	// removes the two starting tiles so a test can lay out its own board
+	private void clearBoard() {
+		testBoard = new Board();
+		for (int row = 0; row < testBoard.getSize(); row++) {
+			for (int col = 0; col < testBoard.getSize(); col++) {
+				testBoard.remove(row, col);
+			}
+		}
+	}
+
+	@Test
+	public void testTableStoresAndEvicts() {
+		TranspositionTable table = new TranspositionTable(1); // a single bucket of two slots
+
+		table.put(1L, 3, 10.0);
+		table.put(2L, 1, 20.0);
+		assertEquals("Stored value should be returned", 10.0, table.get(1L, 3), 0.0);
+		assertTrue("Shallower entry should not answer a deeper search", Double.isNaN(table.get(2L, 2)));
+
+		table.put(3L, 2, 30.0);
+		assertEquals("Deeper entry should survive eviction", 10.0, table.get(1L, 1), 0.0);
+		assertTrue("Shallowest entry should be evicted", Double.isNaN(table.get(2L, 1)));
+		assertEquals("New entry should be stored", 30.0, table.get(3L, 2), 0.0);
+	}
+
+	@Test
+	public void testChoosesOnlyMove() {
+		clearBoard();
+		// every row is full and nothing merges sideways, only up/down merges
+		testBoard.add(new Tile(2), 0, 0);
+		testBoard.add(new Tile(4), 0, 1);
+		testBoard.add(new Tile(8), 0, 2);
+		testBoard.add(new Tile(16), 0, 3);
+		testBoard.add(new Tile(2), 1, 0);
+		testBoard.add(new Tile(32), 1, 1);
+		testBoard.add(new Tile(64), 1, 2);
+		testBoard.add(new Tile(128), 1, 3);
+		testBoard.add(new Tile(256), 2, 0);
+		testBoard.add(new Tile(512), 2, 1);
+		testBoard.add(new Tile(4), 2, 2);
+		testBoard.add(new Tile(8), 2, 3);
+		testBoard.add(new Tile(16), 3, 0);
+		testBoard.add(new Tile(32), 3, 1);
+		testBoard.add(new Tile(64), 3, 2);
+		testBoard.add(new Tile(128), 3, 3);
+
+		int move = new ExpectimaxPlayer(2).chooseMove(testBoard);
+		assertTrue("Only up or down can merge", move == BitBoard.UP || move == BitBoard.DOWN);
+	}
+
+	@Test
+	public void testNoMoveOnLostBoard() {
+		clearBoard();
+		for (int i = 0; i < 16; i++) {
+			testBoard.add(new Tile((i / 4 + i % 4) % 2 == 0 ? 2 : 4), i / 4, i % 4);
+		}
+
+		assertEquals("Lost board should have no move", -1, new ExpectimaxPlayer(2).chooseMove(testBoard));
+	}
+
+	@Test
+	public void testDepthOneLooksOneMoveAhead() {
+		HeuristicEvaluator evaluator = HeuristicEvaluator.defaults();
+		ExpectimaxPlayer player = new ExpectimaxPlayer(1, 0, new TranspositionTable(16), evaluator);
+		testBoard = new Board(4, 8L);
+		for (int n = 0; n < 30 && testBoard.gameOverCode() == 0; n++) {
+			long board = testBoard.packedState();
+			int expected = -1;
+			double best = Double.NEGATIVE_INFINITY;
+			for (int dir = 0; dir < 4; dir++) {
+				long moved = BitBoard.move(board, dir);
+				if (moved != board && evaluator.evaluate(moved) > best) {
+					best = evaluator.evaluate(moved);
+					expected = dir;
+				}
+			}
+			int move = player.chooseMove(testBoard);
+			assertEquals("Depth 1 should only score the board each move leaves", expected, move);
+			testBoard.move(move, true);
+		}
+	}
+
+	@Test
+	public void testPlaysWithTimeBudget() {
+		testBoard = new Board();
+		ExpectimaxPlayer player = new ExpectimaxPlayer(6, 20, new TranspositionTable(16));
+
+		for (int i = 0; i < 20 && testBoard.gameOverCode() == 0; i++) {
+			int move = player.chooseMove(testBoard);
+			assertTrue("Chosen move should change the board", testBoard.update(Board.DIRECTIONS[move]));
+		}
+	}
+
+	@Test
+	public void testEvaluatorMatchesDirectScore() {
+		RowHeuristic[] heuristics = StandardHeuristic.values();
+		double[] weights = {3, 5, 0.5, 7, 11, 0.25};
+		HeuristicEvaluator evaluator = new HeuristicEvaluator(heuristics, weights, 100);
+		Random random = new Random(22);
+		int[] line = new int[4];
+		for (int n = 0; n < 200; n++) {
+			long board = 0;
+			for (int i = 0; i < 16; i++) {
+				board |= (long) (random.nextInt(3) == 0 ? 0 : random.nextInt(15) + 1) << (4 * i);
+			}
+			double expected = 0;
+			for (int k = 0; k < 8; k++) {
+				// rows first, then columns
+				for (int i = 0; i < 4; i++) {
+					line[i] = k < 4 ? BitBoard.get(board, k, i) : BitBoard.get(board, i, k - 4);
+				}
+				expected += 100;
+				for (int h = 0; h < heuristics.length; h++) {
+					expected += weights[h] * heuristics[h].score(line);
+				}
+			}
+			assertEquals(expected, evaluator.evaluate(board), Math.abs(expected) * 1e-5);
+		}
+	}
+
+	@Test
+	public void testHeuristics() {
+		assertEquals(2.0, StandardHeuristic.EMPTY.score(new int[] {0, 1, 0, 3}), 0.0);
+		assertEquals("2 2 _ 2 holds one merge of three tiles", 3.0, StandardHeuristic.MERGES.score(new int[] {1, 1, 0, 1}), 0.0);
+		assertEquals("A sorted line is monotone", 0.0, StandardHeuristic.MONOTONICITY.score(new int[] {4, 3, 2, 1}), 0.0);
+		assertTrue(StandardHeuristic.MONOTONICITY.score(new int[] {1, 4, 2, 3}) < 0);
+		assertEquals(-4.0, StandardHeuristic.SMOOTHNESS.score(new int[] {1, 0, 3, 1}), 0.0);
+		assertEquals(5.0, StandardHeuristic.CORNER.score(new int[] {1, 2, 3, 5}), 0.0);
+		assertEquals(0.0, StandardHeuristic.CORNER.score(new int[] {1, 5, 3, 2}), 0.0);
+	}
+
+	@Test
+	public void testSurvivesWhenEveryScoreIsNegative() {
+		// every board scores below 0, with more empty cells scoring higher
+		HeuristicEvaluator negative = new HeuristicEvaluator(new RowHeuristic[] {StandardHeuristic.EMPTY},
+				new double[] {1}, -1_000_000);
+		clearBoard();
+		int[][] exponents = {{2, 1, 6, 5}, {3, 2, 5, 2}, {2, 4, 2, 3}, {6, 5, 3, 3}};
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < 4; col++) {
+				testBoard.add(new Tile(1 << exponents[row][col]), row, col);
+			}
+		}
+		// left merges the bottom 3s, and any tile spawned in the gap leaves no
+		// move; down merges too and leaves moves whatever is spawned
+		long left = BitBoard.move(testBoard.packedState(), BitBoard.LEFT);
+		assertNotEquals(testBoard.packedState(), left);
+		assertTrue(negative.getLowest() <= negative.evaluate(left));
+
+		ExpectimaxPlayer player = new ExpectimaxPlayer(2, 0, new TranspositionTable(16), negative);
+		assertEquals("A move that survives should beat one that loses", BitBoard.DOWN, player.chooseMove(testBoard));
+	}
+
+	@Test
+	public void testPlaysWithOwnEvaluator() {
+		HeuristicEvaluator emptyOnly = new HeuristicEvaluator(new RowHeuristic[] {StandardHeuristic.EMPTY},
+				new double[] {1}, 1);
+		testBoard = new Board(4, 5L);
+		ExpectimaxPlayer player = new ExpectimaxPlayer(2, 0, new TranspositionTable(16), emptyOnly);
+		for (int i = 0; i < 20 && testBoard.gameOverCode() == 0; i++) {
+			int move = player.chooseMove(testBoard);
+			assertTrue("Chosen move should change the board", testBoard.update(Board.DIRECTIONS[move]));
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * File: GameLoop.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class applies moves to a Board on a thread of its own. Moves wait in
+ * a small bounded queue: the arrow keys offer() theirs and lose them if the
+ * queue is full, so a held key can never build up a backlog, while an AI or
+ * a replay put() theirs and wait for room. After every move the loop
+ * publishes an immutable snapshot of the board, which the window draws from
+ * at its own frame rate instead of reading the board while it changes.
+ *
+ * While the loop runs, the board belongs to its thread; stop() must return
+ * before anyone else touches the board again.
+ */
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+
+public class GameLoop {
+	public static final int UNDO = 4; // commands besides BitBoard.LEFT, RIGHT, UP and DOWN
+	public static final int REDO = 5;
+	private static final int CAPACITY = 8; // moves waiting before keys are dropped
+	private static final Integer STOP = -1; // tells the thread to finish
+
+	private final Board board;
+	private final Listener listener;
+	private final BlockingQueue<Integer> commands = new ArrayBlockingQueue<>(CAPACITY);
+	private volatile BoardSnapshot current; // the board after the last command
+	private Thread thread;
+
+	/*
+	 * This interface is told what the loop did, on the loop's thread
+	 */
+	public interface Listener {
+
+		/**
+		 * Called after each command
+		 *
+		 * @param command: int; the direction, UNDO or REDO
+		 * @param result: long; for a direction the result of Board.move (see
+		 * MoveResult), for UNDO and REDO 1 if it succeeded and 0 if not
+		 */
+		void applied(int command, long result);
+
+		/**
+		 * Called once when a move ends the game; the loop then stops taking
+		 * commands
+		 *
+		 * @param code: int; 1 for a win, -1 for a loss, as in Board.gameOverCode()
+		 */
+		void gameOver(int code);
+	}
+
+	/*
+	 * Constructor for a loop that has not started yet
+	 * @param board - the game to play, not touched by anyone else while the loop runs
+	 * @param listener - told about each command
+	 */
+	public GameLoop(Board board, Listener listener){
+		this.board = board;
+		this.listener = listener;
+		this.current = board.snapshot();
+	}
+
+	/**
+	 * Starts the thread that applies commands
+	 */
+	public synchronized void start(){
+		if (thread != null) return;
+		thread = new Thread(this::run, "game loop");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the loop, dropping commands that were not applied yet, and waits
+	 * for it; the board can be used again once this returns
+	 */
+	public synchronized void stop(){
+		if (thread == null) return;
+		do {
+			commands.clear();
+		} while (!commands.offer(STOP)); // keys may still be arriving
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Queues a command if there is room, for input that may repeat faster
+	 * than it is applied
+	 *
+	 * @param command: int; BitBoard.LEFT, RIGHT, UP, DOWN, UNDO or REDO
+	 * @return boolean; false if the command was dropped
+	 */
+	public boolean offer(int command){
+		return commands.offer(command);
+	}
+
+	/**
+	 * Queues a command, waiting for room, for moves that must all be applied
+	 * such as those of an AI or a replay
+	 *
+	 * @param command: int; BitBoard.LEFT, RIGHT, UP, DOWN, UNDO or REDO
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void put(int command) throws InterruptedException {
+		commands.put(command);
+	}
+
+	/**
+	 * Obtains the board as of the last applied command; safe to call from any
+	 * thread
+	 *
+	 * @return BoardSnapshot; a snapshot that never changes, replaced by a new
+	 * one after each command
+	 */
+	public BoardSnapshot current(){
+		return current;
+	}
+
+	// applies commands until stopped or the game ends
+	private void run(){
+		try {
+			while (true) {
+				int command = commands.take();
+				if (command == STOP) return;
+				long result;
+				if (command == UNDO) result = board.undo() ? 1 : 0;
+				else if (command == REDO) result = board.redo() ? 1 : 0;
+				else result = board.move(command, true);
+				current = board.snapshot();
+				listener.applied(command, result);
+				int code = board.gameOverCode();
+				if (code != 0) {
+					listener.gameOver(code);
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			// stopped
+		}
+	}
+}
@@ -0,0 +1,65 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class GameLoopTest {
+
+	@Test
+	public void testOfferDropsWhenFull() {
+		GameLoop loop = new GameLoop(new Board(4, 1L), new GameLoop.Listener() {
+			@Override
+			public void applied(int command, long result) {
+			}
+
+			@Override
+			public void gameOver(int code) {
+			}
+		});
+		// not started, so nothing is taken off the queue
+		int accepted = 0;
+		for (int i = 0; i < 100; i++) {
+			if (loop.offer(BitBoard.LEFT)) accepted++;
+		}
+		assertTrue("Held keys should not build up a backlog", accepted < 100);
+		loop.stop();
+	}
+
+	@Test
+	public void testAppliesQueuedMoves() throws InterruptedException {
+		Board board = new Board(4, 7L);
+		Board expected = new Board(4, 7L);
+		List<Integer> applied = new CopyOnWriteArrayList<>();
+		int[] gameOver = {0};
+		GameLoop loop = new GameLoop(board, new GameLoop.Listener() {
+			@Override
+			public void applied(int command, long result) {
+				applied.add(command);
+			}
+
+			@Override
+			public void gameOver(int code) {
+				gameOver[0] = code;
+			}
+		});
+		loop.start();
+		int[] moves = {BitBoard.LEFT, BitBoard.UP, BitBoard.RIGHT, BitBoard.DOWN, BitBoard.LEFT, BitBoard.UP};
+		for (int move : moves) {
+			loop.put(move); // an AI or replay waits for room rather than losing moves
+		}
+		// wait for the last move to be applied
+		long deadline = System.currentTimeMillis() + 5000;
+		while (applied.size() < moves.length && gameOver[0] == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		loop.stop();
+		for (int move : moves) {
+			expected.move(move, true);
+		}
+		assertEquals(moves.length, applied.size());
+		assertEquals(expected.snapshot(), board.snapshot());
+		assertEquals("The published snapshot should match the board", board.snapshot(), loop.current());
+	}
+}
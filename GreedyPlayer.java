@@ -0,0 +1,32 @@
+/*
+ * File: GreedyPlayer.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ * 
+ * This class is an automated player that looks one move ahead. It picks the
+ * direction that leaves the most empty cells, which is the direction that
+ * merges the most tiles right now.
+ */
+
+
+public class GreedyPlayer implements Player {
+
+	/**
+	 * Chooses the direction leaving the most empty cells
+	 * 
+	 * @return int; one of BitBoard.LEFT, RIGHT, UP or DOWN, or -1 if no move
+	 * changes the board
+	 */
+	@Override
+	public int chooseMove(Board board){
+		int bestMove = -1;
+		int mostEmpty = -1;
+		for (int dir=0; dir<4; dir++){
+			int empty = board.emptyAfterShift(dir);
+			if (empty > mostEmpty) {
+				mostEmpty = empty;
+				bestMove = dir;
+			}
+		}
+		return bestMove;
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * File: HeuristicEvaluator.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class scores packed 4x4 boards (see BitBoard) for search players. It
+ * combines a set of RowHeuristics with a weight each. When it is made, every
+ * one of the 65536 possible rows is scored by every heuristic once and the
+ * weighted sums are kept in a table, so scoring a board afterwards is eight
+ * table reads: the four rows, then the four columns of the transposed board.
+ * A heuristic that looks at single cells, such as EMPTY, therefore counts
+ * each cell twice, once in its row and once in its column.
+ *
+ * Evaluators never change once made, so one can be shared by any number of
+ * players and threads.
+ */
+
+
+public class HeuristicEvaluator {
+	private static final int ROWS = 1 << 16; // number of distinct 16-bit rows
+	private static final long ROW_MASK = 0xFFFFL;
+
+	// weights that play well at shallow depths, after the published
+	// expectimax players; the base keeps every live board above a lost one
+	private static final RowHeuristic[] DEFAULT_HEURISTICS = {
+			StandardHeuristic.EMPTY, StandardHeuristic.MERGES, StandardHeuristic.MONOTONICITY,
+			StandardHeuristic.SUM};
+	private static final double[] DEFAULT_WEIGHTS = {270.0, 700.0, 47.0, 11.0};
+	private static final double DEFAULT_BASE = 200_000.0;
+	private static final HeuristicEvaluator DEFAULT = new HeuristicEvaluator(DEFAULT_HEURISTICS, DEFAULT_WEIGHTS,
+			DEFAULT_BASE);
+
+	private final RowHeuristic[] heuristics;
+	private final double[] weights;
+	private final double base;
+	private final float[] table = new float[ROWS]; // weighted score of each row
+	private final double lowest; // no board evaluates below this
+
+	/*
+	 * Constructor that scores every possible row
+	 * @param heuristics - the measures to combine
+	 * @param weights - one weight per heuristic
+	 * @param base - added to every line, so that boards that have not been
+	 * lost score above 0
+	 */
+	public HeuristicEvaluator(RowHeuristic[] heuristics, double[] weights, double base){
+		if (heuristics.length != weights.length) {
+			throw new IllegalArgumentException(heuristics.length + " heuristics but " + weights.length + " weights");
+		}
+		this.heuristics = heuristics.clone();
+		this.weights = weights.clone();
+		this.base = base;
+		int[] line = new int[BitBoard.SIZE];
+		float lowestLine = Float.MAX_VALUE;
+		for (int row=0; row<ROWS; row++){
+			for (int i=0; i<BitBoard.SIZE; i++){
+				line[i] = (row >>> (4*i)) & 0xF;
+			}
+			double score = base;
+			for (int h=0; h<heuristics.length; h++){
+				if (weights[h] != 0) score += weights[h] * heuristics[h].score(line);
+			}
+			table[row] = (float) score;
+			lowestLine = Math.min(lowestLine, table[row]);
+		}
+		// eight lines, with room for the rounding of their float sum
+		this.lowest = 8.0 * lowestLine - Math.abs(8.0 * lowestLine) * 1e-6;
+	}
+
+	/**
+	 * Obtains the evaluator ExpectimaxPlayer uses unless given another
+	 *
+	 * @return HeuristicEvaluator; empty cells, merges, monotonicity and
+	 * spread-out tiles with tried weights
+	 */
+	public static HeuristicEvaluator defaults(){
+		return DEFAULT;
+	}
+
+	/**
+	 * Makes an evaluator with the same heuristics and new weights
+	 *
+	 * @param weights: double[]; one weight per heuristic
+	 * @return HeuristicEvaluator; a new evaluator, this one is left as it is
+	 */
+	public HeuristicEvaluator withWeights(double[] weights){
+		return new HeuristicEvaluator(heuristics, weights, base);
+	}
+
+	/**
+	 * Scores a board
+	 *
+	 * @param board: long; a packed board
+	 * @return double; the weighted heuristics summed over all rows and columns
+	 */
+	public double evaluate(long board){
+		long columns = BitBoard.transpose(board);
+		return table[(int) (board & ROW_MASK)] + table[(int) ((board >>> 16) & ROW_MASK)]
+				+ table[(int) ((board >>> 32) & ROW_MASK)] + table[(int) (board >>> 48)]
+				+ table[(int) (columns & ROW_MASK)] + table[(int) ((columns >>> 16) & ROW_MASK)]
+				+ table[(int) ((columns >>> 32) & ROW_MASK)] + table[(int) (columns >>> 48)];
+	}
+
+	/**
+	 * Obtains the heuristics combined
+	 *
+	 * @return RowHeuristic[]; a copy, in the order of getWeights()
+	 */
+	public RowHeuristic[] getHeuristics(){
+		return heuristics.clone();
+	}
+
+	/**
+	 * Obtains the weight of each heuristic
+	 *
+	 * @return double[]; a copy, in the order of getHeuristics()
+	 */
+	public double[] getWeights(){
+		return weights.clone();
+	}
+
+	/**
+	 * Obtains a bound below every score evaluate() can give
+	 *
+	 * @return double; eight times the lowest scoring line, a little lower
+	 */
+	public double getLowest(){
+		return lowest;
+	}
+
+	/**
+	 * Obtains what every line scores before the heuristics are added
+	 *
+	 * @return double; the base given to the constructor
+	 */
+	public double getBase(){
+		return base;
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder s = new StringBuilder("base " + base);
+		for (int h=0; h<heuristics.length; h++){
+			s.append(", ").append(heuristics[h]).append(' ').append(weights[h]);
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * File: LatencyHistogram.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class counts how long something took, in nanoseconds, the way
+ * HdrHistogram does: values below 128 each have a bucket of their own, and
+ * every power of two above that is split into 64 buckets of equal width, so
+ * any value is known to within 1/64 (about 1.6%) of itself. That takes 2240
+ * counters to cover everything from 1 ns to about 18 minutes, and recording
+ * a value is a few shifts and one atomic increment, with no allocation.
+ *
+ * Any number of threads may record at once. Reads are not taken at one
+ * instant, so a percentile read while values are recorded may be off by the
+ * values that arrived during the read.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+public class LatencyHistogram {
+	private static final int SUB_BITS = 6; // 2^6 buckets per power of two
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int HIGHEST_BIT = 39; // values up to 2^40 - 1 ns are told apart
+	private static final long MAX_VALUE = (1L << (HIGHEST_BIT + 1)) - 1;
+	private static final int BUCKETS = (HIGHEST_BIT - SUB_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder(); // sum of the values recorded
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Counts one value
+	 *
+	 * @param nanos: long; a duration, negative ones count as 0 and ones over
+	 * about 18 minutes count as 18 minutes
+	 */
+	public void record(long nanos){
+		long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+		counts.incrementAndGet(bucketOf(value));
+		count.increment();
+		total.add(value);
+		if (value > max.get()) max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Obtains the number of values counted
+	 *
+	 * @return long; values recorded since the last reset
+	 */
+	public long getCount(){
+		return count.sum();
+	}
+
+	/**
+	 * Obtains the mean of the values counted
+	 *
+	 * @return double; the mean in nanoseconds, 0 if there are none
+	 */
+	public double getMean(){
+		long n = count.sum();
+		return n == 0 ? 0 : (double) total.sum() / n;
+	}
+
+	/**
+	 * Obtains the largest value counted
+	 *
+	 * @return long; exactly as recorded, 0 if there are none
+	 */
+	public long getMax(){
+		return max.get();
+	}
+
+	/**
+	 * Obtains the value that a given part of the values are at or below
+	 *
+	 * @param percentile: double; between 0 and 100, e.g. 99.9
+	 * @return long; the highest value of the bucket the percentile falls in,
+	 * so never below the true value and at most 1/64 above it; 0 if there
+	 * are no values
+	 */
+	public long getValueAtPercentile(double percentile){
+		long n = count.sum();
+		if (n == 0) return 0;
+		// the rank-th smallest value, counting from 1
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * n));
+		long seen = 0;
+		for (int bucket=0; bucket<BUCKETS; bucket++){
+			seen += counts.get(bucket);
+			if (seen >= rank) return Math.min(highestIn(bucket), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Forgets every value counted so far
+	 */
+	public void reset(){
+		for (int bucket=0; bucket<BUCKETS; bucket++){
+			counts.set(bucket, 0);
+		}
+		count.reset();
+		total.reset();
+		max.set(0);
+	}
+
+	@Override
+	public String toString(){
+		return String.format("count %d, mean %s, p50 %s, p99 %s, p99.9 %s, max %s", getCount(), format(getMean()),
+				format(getValueAtPercentile(50)), format(getValueAtPercentile(99)),
+				format(getValueAtPercentile(99.9)), format(getMax()));
+	}
+
+	/**
+	 * Writes a duration in the unit that suits it
+	 *
+	 * @param nanos: double; a duration in nanoseconds
+	 * @return String; e.g. "850 ns", "12.3 us" or "4.05 ms"
+	 */
+	public static String format(double nanos){
+		if (nanos < 1_000) return String.format("%.0f ns", nanos);
+		if (nanos < 1_000_000) return String.format("%.3g us", nanos / 1e3);
+		if (nanos < 1_000_000_000) return String.format("%.3g ms", nanos / 1e6);
+		return String.format("%.3g s", nanos / 1e9);
+	}
+
+	// the bucket of a value between 0 and MAX_VALUE
+	private static int bucketOf(long value){
+		if (value < 2*SUB_BUCKETS) return (int) value;
+		// keep the top SUB_BITS + 1 bits, the highest of which is always set
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return shift*SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	// the highest value that falls in a bucket
+	private static long highestIn(int bucket){
+		if (bucket < 2*SUB_BUCKETS) return bucket;
+		int shift = bucket/SUB_BUCKETS - 1;
+		long sub = bucket - shift*SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+}
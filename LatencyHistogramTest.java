@@ -0,0 +1,85 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0.0, histogram.getMean(), 0.0);
+		assertEquals(0, histogram.getValueAtPercentile(99));
+		assertEquals(0, histogram.getMax());
+	}
+
+	@Test
+	public void testSmallValuesExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int value = 1; value <= 100; value++) {
+			histogram.record(value);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(50.5, histogram.getMean(), 1e-9);
+		assertEquals("Values below 128 should be counted exactly", 50, histogram.getValueAtPercentile(50));
+		assertEquals(99, histogram.getValueAtPercentile(99));
+		assertEquals(100, histogram.getValueAtPercentile(100));
+		assertEquals(100, histogram.getMax());
+	}
+
+	@Test
+	public void testPercentilesWithinPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		long[] values = new long[10_000];
+		SplittableRandom random = new SplittableRandom(4L);
+		for (int i = 0; i < values.length; i++) {
+			// spread over six orders of magnitude, like real latencies
+			values[i] = (long) Math.pow(10, 2 + 6 * random.nextDouble());
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+		for (double percentile : new double[] {50, 90, 99, 99.9}) {
+			long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+			long reported = histogram.getValueAtPercentile(percentile);
+			assertTrue("A percentile should not be below the true value", reported >= exact);
+			assertTrue("A percentile should be within 1/64 of the true value", reported <= exact + exact / 64);
+		}
+		assertEquals(values[values.length - 1], histogram.getMax());
+	}
+
+	@Test
+	public void testOutOfRangeValuesAndReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(2, histogram.getCount());
+		assertEquals("A negative duration should count as 0", 0, histogram.getValueAtPercentile(50));
+		assertTrue("A huge duration should be clamped", histogram.getMax() > 0);
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testConcurrentRecords() throws InterruptedException {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					histogram.record(1_000 + i);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals("No record should be lost", 40_000, histogram.getCount());
+		assertEquals(10_999, histogram.getMax());
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * File: LeaderboardClient.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class saves and looks up scores through a LeaderboardServer on this
+ * machine, so any number of games can share one leaderboard without opening
+ * its files themselves. Each call is one HTTP request; a server that does not
+ * answer within a few seconds, or answers with an error, is reported as an
+ * IOException.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+public class LeaderboardClient {
+	private static final int TIMEOUT_MILLIS = 3000; // to connect, and again to read the answer
+
+	private final String base; // e.g. http://127.0.0.1:8048
+
+	/*
+	 * Constructor for a client of the server on a loopback port
+	 * @param port - the port the LeaderboardServer listens on
+	 */
+	public LeaderboardClient(int port){
+		this.base = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port;
+	}
+
+	/**
+	 * Saves a score
+	 *
+	 * @param name: String; the player's username
+	 * @param score: int; the score of the game
+	 * @param size: int; the number of tiles per row/column of the board
+	 * @return int; the rank of the new entry on its board size, 1 for the best
+	 * @throws IOException if the server cannot be reached or refuses the score
+	 */
+	public int add(String name, int score, int size) throws IOException {
+		String body = "{\"name\":" + LeaderboardServer.quote(name) + ",\"score\":" + score + ",\"size\":" + size + "}";
+		return number(object(request("/scores", body)), "rank");
+	}
+
+	/**
+	 * Finds where a score would be ranked if it were saved now
+	 *
+	 * @param score: int; the score of a game
+	 * @param size: int; the number of tiles per row/column of the board
+	 * @return int; 1 for a new best score
+	 * @throws IOException if the server cannot be reached
+	 */
+	public int rankOf(int score, int size) throws IOException {
+		return number(object(request("/rank?size=" + size + "&score=" + score, null)), "rank");
+	}
+
+	/**
+	 * Obtains the best scores of a board size
+	 *
+	 * @param size: int; the number of tiles per row/column of the board
+	 * @param k: int; how many entries at most
+	 * @return List<LeaderboardEntry>; the best entries, best first
+	 * @throws IOException if the server cannot be reached
+	 */
+	public List<LeaderboardEntry> top(int size, int k) throws IOException {
+		List<Map<String, String>> answer;
+		try {
+			answer = LeaderboardServer.parseArray(request("/top?size=" + size + "&k=" + k, null));
+		} catch (IllegalArgumentException e) {
+			throw new IOException("bad answer from " + base + ": " + e.getMessage());
+		}
+		List<LeaderboardEntry> top = new ArrayList<>();
+		for (Map<String, String> entry : answer){
+			String name = entry.get("name");
+			if (name == null) throw new IOException("bad answer from " + base + ": missing name");
+			top.add(new LeaderboardEntry(name, number(entry, "score"), size));
+		}
+		return top;
+	}
+
+	// sends a GET, or a POST of body, and reads a successful answer
+	private String request(String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+		connection.setConnectTimeout(TIMEOUT_MILLIS);
+		connection.setReadTimeout(TIMEOUT_MILLIS);
+		if (body != null) {
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		int status = connection.getResponseCode();
+		if (status != HttpURLConnection.HTTP_OK) {
+			connection.disconnect();
+			throw new IOException(base + path + " answered " + status);
+		}
+		// reading the answer to the end lets the connection be used again
+		try (InputStream in = connection.getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	// the fields of an answer that is one object
+	private Map<String, String> object(String json) throws IOException {
+		try {
+			return LeaderboardServer.parseObject(json);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("bad answer from " + base + ": " + e.getMessage());
+		}
+	}
+
+	// a whole number field of an answer
+	private int number(Map<String, String> fields, String key) throws IOException {
+		try {
+			return Integer.parseInt(fields.get(key));
+		} catch (NumberFormatException e) {
+			throw new IOException("bad answer from " + base + ": " + key + " is " + fields.get(key));
+		}
+	}
+}
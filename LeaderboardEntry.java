@@ -0,0 +1,60 @@
+/*
+ * File: LeaderboardEntry.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is one score on the leaderboard: who got it, how much and on
+ * which size of board. Entries never change once made.
+ */
+
+
+public final class LeaderboardEntry {
+	private final String name;
+	private final int score;
+	private final int size;
+	final long journalNumber; // line of LeaderboardStore's journal it was saved in, 0 if compacted
+
+	/*
+	 * Constructor for an entry
+	 * @param name - the player's username
+	 * @param score - the score of the game, as in Board.getScore()
+	 * @param size - the number of tiles per row/column of the board
+	 */
+	public LeaderboardEntry(String name, int score, int size){
+		this(name, score, size, 0);
+	}
+
+	// an entry saved in a journal line of a LeaderboardStore
+	LeaderboardEntry(String name, int score, int size, long journalNumber){
+		this.name = name;
+		this.score = score;
+		this.size = size;
+		this.journalNumber = journalNumber;
+	}
+
+	/**
+	 * Obtains the player's username
+	 *
+	 * @return String; the name the score was saved under
+	 */
+	public String getName(){
+		return name;
+	}
+
+	/**
+	 * Obtains the score
+	 *
+	 * @return int; the score of the game
+	 */
+	public int getScore(){
+		return score;
+	}
+
+	/**
+	 * Obtains the size of the board the game was played on
+	 *
+	 * @return int; the number of tiles per row/column
+	 */
+	public int getSize(){
+		return size;
+	}
+}
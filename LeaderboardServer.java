@@ -0,0 +1,335 @@
+/*
+ * File: LeaderboardServer.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class shares one LeaderboardStore with every game on the machine over
+ * a small HTTP/JSON interface:
+ *
+ *   POST /scores                 body {"name":"...","score":N,"size":S}
+ *                                answers {"rank":R}
+ *   GET  /top?size=S&k=K         answers [{"rank":1,"name":"...","score":N},...]
+ *   GET  /rank?size=S&score=N    answers {"rank":R,"count":C}
+ *
+ * Requests are handled on the threads of an Executor, many at once; the
+ * store does its own locking. Only the loopback address is listened on.
+ * LeaderboardClient makes these requests for a game.
+ *
+ * Usage: java LeaderboardServer [--port 8048] [--file leaderboard.txt] [--threads N]
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+public class LeaderboardServer {
+	public static final int DEFAULT_PORT = 8048;
+	private static final int DEFAULT_TOP = 10;
+	private static final int MAX_BODY = 4096; // bytes of a score submission
+
+	private final LeaderboardStore store;
+	private final HttpServer server;
+
+	/*
+	 * Constructor for a server that has not started yet
+	 * @param store - the leaderboard to serve
+	 * @param port - the loopback port to listen on, 0 for any free port
+	 * @param executor - runs the requests; a pool of virtual threads can be
+	 * passed on JDKs that have them
+	 * @throws IOException if the port cannot be bound
+	 */
+	public LeaderboardServer(LeaderboardStore store, int port, Executor executor) throws IOException {
+		this.store = store;
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.setExecutor(executor);
+		server.createContext("/scores", this::handleScores);
+		server.createContext("/top", this::handleTop);
+		server.createContext("/rank", this::handleRank);
+	}
+
+	/**
+	 * Starts answering requests
+	 */
+	public void start(){
+		server.start();
+	}
+
+	/**
+	 * Stops answering requests, letting running ones finish for up to a second
+	 */
+	public void stop(){
+		server.stop(1);
+	}
+
+	/**
+	 * Obtains the port being listened on
+	 *
+	 * @return int; the bound port, useful when 0 was asked for
+	 */
+	public int getPort(){
+		return server.getAddress().getPort();
+	}
+
+	// POST /scores
+	private void handleScores(HttpExchange exchange) throws IOException {
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "{\"error\":\"use POST\"}");
+				return;
+			}
+			Map<String, String> fields = parseObject(readBody(exchange));
+			String name = fields.get("name");
+			if (name == null || name.isBlank()) throw new IllegalArgumentException("missing name");
+			int score = Integer.parseInt(require(fields, "score"));
+			int size = fields.containsKey("size") ? Integer.parseInt(fields.get("size")) : 4;
+			if (size < 4 || size > 8) throw new IllegalArgumentException("size must be between 4 and 8");
+			send(exchange, 200, "{\"rank\":" + store.add(name, score, size) + "}");
+		} catch (IllegalArgumentException e) {
+			send(exchange, 400, "{\"error\":" + quote(e.getMessage()) + "}");
+		} catch (IOException e) {
+			// the score could not be kept; the client may try again later
+			send(exchange, 500, "{\"error\":\"could not save the score\"}");
+		}
+	}
+
+	// GET /top
+	private void handleTop(HttpExchange exchange) throws IOException {
+		try {
+			Map<String, String> query = parseQuery(exchange.getRequestURI());
+			int size = Integer.parseInt(query.getOrDefault("size", "4"));
+			int k = Integer.parseInt(query.getOrDefault("k", String.valueOf(DEFAULT_TOP)));
+			List<LeaderboardEntry> top = store.top(size, k);
+			StringBuilder json = new StringBuilder("[");
+			for (int i=0; i<top.size(); i++){
+				if (i > 0) json.append(',');
+				json.append("{\"rank\":").append(i + 1)
+						.append(",\"name\":").append(quote(top.get(i).getName()))
+						.append(",\"score\":").append(top.get(i).getScore()).append('}');
+			}
+			send(exchange, 200, json.append(']').toString());
+		} catch (IllegalArgumentException e) {
+			send(exchange, 400, "{\"error\":" + quote(e.getMessage()) + "}");
+		}
+	}
+
+	// GET /rank
+	private void handleRank(HttpExchange exchange) throws IOException {
+		try {
+			Map<String, String> query = parseQuery(exchange.getRequestURI());
+			int size = Integer.parseInt(query.getOrDefault("size", "4"));
+			int score = Integer.parseInt(require(query, "score"));
+			send(exchange, 200, "{\"rank\":" + store.rankOf(score, size) + ",\"count\":" + store.count(size) + "}");
+		} catch (IllegalArgumentException e) {
+			send(exchange, 400, "{\"error\":" + quote(e.getMessage()) + "}");
+		}
+	}
+
+	// reads a request body of at most MAX_BODY bytes
+	private static String readBody(HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			byte[] body = in.readNBytes(MAX_BODY + 1);
+			if (body.length > MAX_BODY) throw new IllegalArgumentException("body too long");
+			return new String(body, StandardCharsets.UTF_8);
+		}
+	}
+
+	// writes a JSON answer and ends the exchange
+	private static void send(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	// a field that must be present
+	private static String require(Map<String, String> fields, String key){
+		String value = fields.get(key);
+		if (value == null) throw new IllegalArgumentException("missing " + key);
+		return value;
+	}
+
+	// splits "a=1&b=2" into its parameters
+	private static Map<String, String> parseQuery(URI uri){
+		Map<String, String> query = new HashMap<>();
+		String raw = uri.getQuery();
+		if (raw == null) return query;
+		for (String pair : raw.split("&")){
+			int eq = pair.indexOf('=');
+			if (eq > 0) query.put(pair.substring(0, eq), pair.substring(eq + 1));
+		}
+		return query;
+	}
+
+	/**
+	 * Reads a flat JSON object of string and number fields, which is all a
+	 * score submission holds
+	 *
+	 * @param json: String; an object such as {"name":"a","score":12}
+	 * @return Map<String, String>; each field's value, numbers as written
+	 * @throws IllegalArgumentException if the text is not such an object
+	 */
+	static Map<String, String> parseObject(String json){
+		return readObject(json, new int[] {skip(json, 0)});
+	}
+
+	/**
+	 * Reads a JSON array of flat objects, as GET /top answers
+	 *
+	 * @param json: String; an array such as [{"rank":1,"name":"a","score":12}]
+	 * @return List<Map<String, String>>; the fields of each object in order
+	 * @throws IllegalArgumentException if the text is not such an array
+	 */
+	static List<Map<String, String>> parseArray(String json){
+		List<Map<String, String>> objects = new ArrayList<>();
+		int[] pos = {skip(json, 0)};
+		expect(json, pos, '[');
+		if (peek(json, pos) == ']') return objects;
+		while (true) {
+			objects.add(readObject(json, pos));
+			if (peek(json, pos) == ']') return objects;
+			expect(json, pos, ',');
+		}
+	}
+
+	// reads a flat object at pos, moving pos past it
+	private static Map<String, String> readObject(String json, int[] pos){
+		Map<String, String> fields = new HashMap<>();
+		expect(json, pos, '{');
+		if (peek(json, pos) == '}') {
+			expect(json, pos, '}');
+			return fields;
+		}
+		while (true) {
+			String key = readString(json, pos);
+			expect(json, pos, ':');
+			String value;
+			if (peek(json, pos) == '"') {
+				value = readString(json, pos);
+			} else {
+				int start = pos[0];
+				while (pos[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(pos[0])) < 0) pos[0]++;
+				value = json.substring(start, pos[0]);
+				pos[0] = skip(json, pos[0]);
+			}
+			fields.put(key, value);
+			if (peek(json, pos) == '}') {
+				expect(json, pos, '}');
+				return fields;
+			}
+			expect(json, pos, ',');
+		}
+	}
+
+	// reads a quoted string at pos, moving pos past it
+	private static String readString(String json, int[] pos){
+		expect(json, pos, '"');
+		StringBuilder s = new StringBuilder();
+		int i = pos[0];
+		while (i < json.length() && json.charAt(i) != '"') {
+			char c = json.charAt(i++);
+			if (c == '\\') {
+				if (i >= json.length()) break;
+				char e = json.charAt(i++);
+				switch (e) {
+					case 'n': s.append('\n'); break;
+					case 't': s.append('\t'); break;
+					case 'r': s.append('\r'); break;
+					case 'b': s.append('\b'); break;
+					case 'f': s.append('\f'); break;
+					case 'u':
+						if (i + 4 > json.length()) throw new IllegalArgumentException("bad escape");
+						s.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+						i += 4;
+						break;
+					default: s.append(e);
+				}
+			} else {
+				s.append(c);
+			}
+		}
+		if (i >= json.length()) throw new IllegalArgumentException("unterminated string");
+		pos[0] = skip(json, i + 1);
+		return s.toString();
+	}
+
+	// moves pos past an expected character and any whitespace after it
+	private static void expect(String json, int[] pos, char c){
+		if (peek(json, pos) != c) throw new IllegalArgumentException("expected '" + c + "' at " + pos[0]);
+		pos[0] = skip(json, pos[0] + 1);
+	}
+
+	// the character at pos, or 0 at the end
+	private static char peek(String json, int[] pos){
+		return pos[0] < json.length() ? json.charAt(pos[0]) : 0;
+	}
+
+	// the first index at or after i that is not whitespace
+	private static int skip(String json, int i){
+		while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+		return i;
+	}
+
+	/**
+	 * Writes a string as a JSON string literal
+	 *
+	 * @return String; s in quotes with quotes, backslashes and control
+	 * characters escaped
+	 */
+	static String quote(String s){
+		StringBuilder q = new StringBuilder(s.length() + 2).append('"');
+		for (int i=0; i<s.length(); i++){
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') q.append('\\').append(c);
+			else if (c < 0x20) q.append(String.format("\\u%04x", (int) c));
+			else q.append(c);
+		}
+		return q.append('"').toString();
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		String file = "leaderboard.txt";
+		int threads = Runtime.getRuntime().availableProcessors() * 2;
+		for (int i=0; i<args.length - 1; i++){
+			switch (args[i]) {
+				case "--port": port = Integer.parseInt(args[++i]); break;
+				case "--file": file = args[++i]; break;
+				case "--threads": threads = Integer.parseInt(args[++i]); break;
+				default: break;
+			}
+		}
+		LeaderboardStore store = new LeaderboardStore(new File(file));
+		// Java 17 has no virtual threads; a fixed pool of platform threads
+		// serves the same requests, the journal write being the only wait
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		LeaderboardServer server = new LeaderboardServer(store, port, executor);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop();
+			executor.shutdown();
+			try {
+				store.close();
+			} catch (IOException e) {
+				System.err.println("Could not close the journal: " + e.getMessage());
+			}
+		}));
+		server.start();
+		System.out.println("Leaderboard of " + file + " on http://localhost:" + server.getPort() + "/");
+	}
+}
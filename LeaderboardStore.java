@@ -0,0 +1,355 @@
+/*
+ * File: LeaderboardStore.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class holds every score ever saved, one table per board size, loaded
+ * once and kept sorted in memory (see ScoreSkipList). It is kept on disk in
+ * two files:
+ *
+ *   leaderboard.txt          the compacted leaderboard, highest score first,
+ *                            one "name, score" line per 4x4 entry and
+ *                            "name, score, size" for other sizes
+ *   leaderboard.txt.journal  scores saved since, one "number,size,score,name"
+ *                            line each
+ *
+ * Saving a score appends one line to the journal. Every so often the journal
+ * is folded into a new leaderboard file, written to a temporary file and
+ * renamed over the old one, so a crash at any point leaves either the old or
+ * the new file. The first line of the compacted file records the last journal
+ * line it holds, so journal lines are never counted twice.
+ *
+ * Only one LeaderboardStore may have the files open at a time, in this or any
+ * other process: it holds an exclusive lock on leaderboard.txt.lock until it
+ * is closed, and a second one refuses to open. Other games reach the scores
+ * through the one LeaderboardServer that owns them.
+ *
+ * Many threads can save and look up scores at once. Each board size has its
+ * own read/write lock, so scores of different sizes are ranked in parallel
+ * and lookups only wait for saves of the same size; the journal has a lock of
+ * its own that is held just long enough to write one line.
+ */
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+public class LeaderboardStore implements Closeable {
+	public static final String JOURNAL_SUFFIX = ".journal";
+	public static final String LOCK_SUFFIX = ".lock"; // held while the store is open
+	private static final String OLD_SUFFIX = ".old"; // a journal being compacted
+	private static final String HEADER = "# journal through "; // first line of the compacted file
+	private static final int DEFAULT_SIZE = 4; // size of entries written without one
+	private static final int COMPACT_EVERY = 1000; // journal lines before compacting
+
+	private final Path file;
+	private final Path journal;
+	private final Path oldJournal;
+	private final Map<Integer, Table> tables = new ConcurrentSkipListMap<>(); // by board size
+	private final FileChannel lockChannel; // holds the lock that keeps other writers out
+
+	// the journal and what is known about it, guarded by journalLock
+	private final Object journalLock = new Object();
+	private FileChannel journalChannel;
+	private Writer journalOut;
+	private long lastJournaled; // number of the last journal line written
+	private int journalLines; // journal lines not yet compacted
+	private boolean compacting;
+
+	private final Object compactLock = new Object(); // one compaction at a time
+
+	/*
+	 * Constructor that loads the leaderboard and its journal
+	 * @param file - the compacted leaderboard, created on the first compaction
+	 * if it does not exist
+	 * @throws IOException if another store has the files open, or they
+	 * cannot be read or the journal opened
+	 */
+	public LeaderboardStore(File file) throws IOException {
+		this.file = file.toPath();
+		this.journal = new File(file.getPath() + JOURNAL_SUFFIX).toPath();
+		this.oldJournal = new File(file.getPath() + JOURNAL_SUFFIX + OLD_SUFFIX).toPath();
+		this.lockChannel = lock(new File(file.getPath() + LOCK_SUFFIX).toPath());
+		try {
+			long compactedThrough = loadCompacted();
+			lastJournaled = compactedThrough;
+			loadJournal(oldJournal, compactedThrough); // left by a compaction that did not finish
+			openJournal(loadJournal(journal, compactedThrough));
+		} catch (IOException | RuntimeException e) {
+			lockChannel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Saves a score
+	 *
+	 * @param name: String; the player's username, commas and line breaks
+	 * are replaced with spaces
+	 * @param score: int; the score of the game
+	 * @param size: int; the number of tiles per row/column of the board
+	 * @return int; the rank of the new entry on its board size, 1 for the best
+	 * @throws IOException if the journal cannot be written
+	 */
+	public int add(String name, int score, int size) throws IOException {
+		name = clean(name);
+		Table table = table(size);
+		int rank;
+		boolean compact;
+		table.lock.writeLock().lock();
+		try {
+			// journal under the table's lock, so equal scores reload in the
+			// order they were ranked
+			long number;
+			synchronized (journalLock) {
+				number = ++lastJournaled;
+				journalOut.write(number + "," + size + "," + score + "," + name + "\n");
+				journalOut.flush();
+				compact = ++journalLines >= COMPACT_EVERY && !compacting;
+				if (compact) compacting = true;
+			}
+			rank = table.scores.add(new LeaderboardEntry(name, score, size, number));
+		} finally {
+			table.lock.writeLock().unlock();
+		}
+		if (compact) compact();
+		return rank;
+	}
+
+	/**
+	 * Finds where a score would be ranked if it were saved now
+	 *
+	 * @return int; 1 for a new best score; equal scores already saved stay ahead
+	 */
+	public int rankOf(int score, int size){
+		Table table = tables.get(size);
+		if (table == null) return 1;
+		table.lock.readLock().lock();
+		try {
+			return table.scores.countAtLeast(score) + 1;
+		} finally {
+			table.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Obtains the best scores on one board size
+	 *
+	 * @param size: int; the number of tiles per row/column
+	 * @param count: int; the most entries to return
+	 * @return List<LeaderboardEntry>; highest score first
+	 */
+	public List<LeaderboardEntry> top(int size, int count){
+		Table table = tables.get(size);
+		if (table == null) return new ArrayList<>();
+		table.lock.readLock().lock();
+		try {
+			return table.scores.top(count);
+		} finally {
+			table.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Obtains the number of scores saved on one board size
+	 *
+	 * @return int; the entries of that size
+	 */
+	public int count(int size){
+		Table table = tables.get(size);
+		if (table == null) return 0;
+		table.lock.readLock().lock();
+		try {
+			return table.scores.size();
+		} finally {
+			table.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Folds the journal into a new leaderboard file and starts a new journal;
+	 * scores can still be saved while this runs
+	 *
+	 * @throws IOException if the new file cannot be written; the scores are
+	 * then kept in the journals and folded in by the next compaction
+	 */
+	public void compact() throws IOException {
+		synchronized (compactLock) {
+			long through;
+			synchronized (journalLock) {
+				compacting = true;
+				// later scores go to a new journal while the old one is folded in
+				journalOut.close();
+				if (Files.exists(oldJournal)) {
+					// an earlier compaction failed, its lines are still waiting
+					Files.write(oldJournal, Files.readAllBytes(journal), StandardOpenOption.APPEND);
+					Files.delete(journal);
+				} else {
+					Files.move(journal, oldJournal);
+				}
+				openJournal(0);
+				through = lastJournaled;
+				journalLines = 0;
+			}
+			try {
+				writeCompacted(through);
+				Files.delete(oldJournal);
+			} finally {
+				synchronized (journalLock) {
+					compacting = false;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (journalLock) {
+			try {
+				journalOut.close();
+			} finally {
+				lockChannel.close(); // releases the lock
+			}
+		}
+	}
+
+	// takes the exclusive lock on a lock file, which is left in place so the
+	// next store locks the same file
+	private static FileChannel lock(Path lockFile) throws IOException {
+		FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			lock = null; // held by another store in this JVM
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		if (lock == null) {
+			channel.close();
+			throw new IOException(lockFile + " is held by another leaderboard; reach it through its server");
+		}
+		return channel;
+	}
+
+	// writes every entry up to a journal line to a temporary file and renames
+	// it over the compacted file
+	private void writeCompacted(long through) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+				Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(out),
+						StandardCharsets.UTF_8))) {
+			writer.write(HEADER + through + System.lineSeparator());
+			for (Table table : tables.values()){
+				List<LeaderboardEntry> entries;
+				table.lock.readLock().lock();
+				try {
+					entries = table.scores.top(table.scores.size());
+				} finally {
+					table.lock.readLock().unlock();
+				}
+				for (LeaderboardEntry entry : entries){
+					if (entry.journalNumber > through) continue; // still in the new journal
+					writer.write(entry.getName() + ", " + entry.getScore()
+							+ (entry.getSize() == DEFAULT_SIZE ? "" : ", " + entry.getSize()) + System.lineSeparator());
+				}
+			}
+			writer.flush();
+			out.force(true); // the data must be on disk before the rename makes it current
+		}
+		try {
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	// opens the journal for appending after its first length bytes
+	private void openJournal(long length) throws IOException {
+		journalChannel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		journalChannel.truncate(length); // drop a line cut short by a crash
+		journalChannel.position(length);
+		journalOut = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(journalChannel),
+				StandardCharsets.UTF_8));
+	}
+
+	// reads the compacted file, returning the last journal line it holds
+	private long loadCompacted() throws IOException {
+		if (!Files.exists(file)) return 0;
+		long through = 0;
+		boolean first = true;
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)){
+			// only the first line can be the header; a player may be named
+			// "# journal through 5" too, but is never written first
+			if (first && line.startsWith(HEADER) && line.substring(HEADER.length()).strip().matches("\\d+")) {
+				through = Long.parseLong(line.substring(HEADER.length()).strip());
+				first = false;
+				continue;
+			}
+			first = false;
+			String[] fields = line.split(",");
+			if (fields.length < 2) continue; // blank line
+			int size = fields.length > 2 ? Integer.parseInt(fields[2].strip()) : DEFAULT_SIZE;
+			table(size).scores.add(new LeaderboardEntry(fields[0].strip(), Integer.parseInt(fields[1].strip()), size));
+		}
+		return through;
+	}
+
+	// replays the lines of a journal after the compacted ones, returning the
+	// length of its whole lines
+	private long loadJournal(Path path, long compactedThrough) throws IOException {
+		if (!Files.exists(path)) return 0;
+		byte[] bytes = Files.readAllBytes(path);
+		int end = bytes.length;
+		while (end > 0 && bytes[end - 1] != '\n') end--; // anything after the last line break was cut short
+		for (String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n")){
+			String[] fields = line.split(",", 4);
+			if (fields.length < 4) continue;
+			long number = Long.parseLong(fields[0]);
+			if (number <= compactedThrough) continue; // already in the compacted file
+			int size = Integer.parseInt(fields[1]);
+			table(size).scores.add(new LeaderboardEntry(fields[3], Integer.parseInt(fields[2]), size, number));
+			lastJournaled = Math.max(lastJournaled, number);
+			journalLines++;
+		}
+		return end;
+	}
+
+	// the table of one board size, made on first use
+	private Table table(int size){
+		return tables.computeIfAbsent(size, s -> new Table());
+	}
+
+	// makes a name safe for both file formats
+	private static String clean(String name){
+		return name.replaceAll("[,\\r\\n]", " ").strip();
+	}
+
+	/*
+	 * This class is the ranked scores of one board size and their lock
+	 */
+	private static final class Table {
+		final ScoreSkipList scores = new ScoreSkipList();
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	}
+}
@@ -0,0 +1,293 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LeaderboardStoreTest {
+
+	@Test
+	public void testSkipListRanks() {
+		ScoreSkipList list = new ScoreSkipList();
+		List<Integer> scores = new ArrayList<>();
+		Random random = new Random(4);
+		for (int i = 0; i < 2000; i++) {
+			int score = random.nextInt(500);
+			int expected = 1;
+			for (int s : scores) {
+				if (s >= score) expected++;
+			}
+			assertEquals("Equal scores added earlier should stay ahead", expected, list.add(new LeaderboardEntry("p" + i, score, 4)));
+			scores.add(score);
+		}
+		scores.sort((a, b) -> b - a);
+		for (int rank = 1; rank <= scores.size(); rank += 37) {
+			assertEquals(scores.get(rank - 1).intValue(), list.get(rank).getScore());
+		}
+		assertEquals(scores.get(0).intValue(), list.top(1).get(0).getScore());
+		int atLeast = 0;
+		for (int s : scores) {
+			if (s >= 250) atLeast++;
+		}
+		assertEquals(atLeast, list.countAtLeast(250));
+	}
+
+	@Test
+	public void testReloadAndCompact() throws IOException {
+		File file = File.createTempFile("leaderboard", ".txt");
+		File journal = new File(file.getPath() + LeaderboardStore.JOURNAL_SUFFIX);
+		try {
+			// the old format: "name, score" lines for 4x4 games
+			try (FileWriter old = new FileWriter(file)) {
+				old.write("wildcats, 2800\nyankees , 2750\nbaby,238\n");
+			}
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				assertEquals(3, store.count(4));
+				assertEquals(2, store.rankOf(2800, 4));
+				assertEquals(3, store.add("tie", 2750, 4));
+				assertEquals(1, store.add("big, board", 100, 8));
+			}
+			// a line cut short by a crash is dropped
+			try (FileWriter torn = new FileWriter(journal, true)) {
+				torn.write("3,4,99");
+			}
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				assertEquals(4, store.count(4));
+				assertEquals("tie", store.top(4, 10).get(2).getName());
+				assertEquals("big  board", store.top(8, 1).get(0).getName());
+				store.compact();
+				store.add("after", 10, 4);
+			}
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				assertEquals("Journal lines should not be counted twice", 5, store.count(4));
+				assertEquals(1, store.count(8));
+				assertEquals("after", store.top(4, 10).get(4).getName());
+			}
+		} finally {
+			file.delete();
+			journal.delete();
+			new File(file.getPath() + LeaderboardStore.LOCK_SUFFIX).delete();
+		}
+	}
+
+	@Test
+	public void testNameLikeHeader() throws IOException {
+		File file = File.createTempFile("leaderboard", ".txt");
+		File journal = new File(file.getPath() + LeaderboardStore.JOURNAL_SUFFIX);
+		try {
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				store.add("# journal through 5", 500, 4);
+				store.add("plain", 400, 4);
+				store.compact();
+				store.add("# journal through 9", 300, 4);
+			}
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				assertEquals("Names that look like the header should survive a reload", 3, store.count(4));
+				assertEquals("# journal through 5", store.top(4, 1).get(0).getName());
+				store.compact();
+			}
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				List<LeaderboardEntry> top = store.top(4, 3);
+				assertEquals(3, top.size());
+				assertEquals("# journal through 5", top.get(0).getName());
+				assertEquals("# journal through 9", top.get(2).getName());
+			}
+		} finally {
+			file.delete();
+			journal.delete();
+			new File(file.getPath() + LeaderboardStore.LOCK_SUFFIX).delete();
+		}
+	}
+
+	@Test
+	public void testSecondStoreRefused() throws IOException {
+		File file = File.createTempFile("leaderboard", ".txt");
+		File journal = new File(file.getPath() + LeaderboardStore.JOURNAL_SUFFIX);
+		try {
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				store.add("a", 10, 4);
+				try {
+					new LeaderboardStore(file).close();
+					fail("A second store on the same files should not open");
+				} catch (IOException e) {
+					// expected
+				}
+				assertEquals("The first store should keep working", 2, store.add("b", 5, 4));
+			}
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				assertEquals("Closing should let the next store open", 2, store.count(4));
+			}
+		} finally {
+			file.delete();
+			journal.delete();
+			new File(file.getPath() + LeaderboardStore.LOCK_SUFFIX).delete();
+		}
+	}
+
+	@Test
+	public void testConcurrentAdds() throws Exception {
+		File file = File.createTempFile("leaderboard", ".txt");
+		File journal = new File(file.getPath() + LeaderboardStore.JOURNAL_SUFFIX);
+		int threads = 4, perThread = 600; // enough to compact while adding
+		try {
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				Thread[] workers = new Thread[threads];
+				for (int t = 0; t < threads; t++) {
+					int id = t;
+					workers[t] = new Thread(() -> {
+						try {
+							for (int i = 0; i < perThread; i++) {
+								store.add("t" + id, id * perThread + i, 4 + id % 2);
+							}
+						} catch (IOException e) {
+							throw new RuntimeException(e);
+						}
+					});
+					workers[t].start();
+				}
+				for (Thread worker : workers) {
+					worker.join();
+				}
+				assertEquals(threads * perThread / 2, store.count(4));
+				assertEquals(threads * perThread / 2, store.count(5));
+				List<LeaderboardEntry> top = store.top(5, threads * perThread);
+				for (int i = 1; i < top.size(); i++) {
+					assertTrue(top.get(i - 1).getScore() >= top.get(i).getScore());
+				}
+			}
+			try (LeaderboardStore store = new LeaderboardStore(file)) {
+				assertEquals("No score should be lost or counted twice", threads * perThread / 2, store.count(4));
+				assertEquals(threads * perThread - 1, store.top(5, 1).get(0).getScore());
+			}
+		} finally {
+			file.delete();
+			journal.delete();
+			new File(file.getPath() + LeaderboardStore.LOCK_SUFFIX).delete();
+		}
+	}
+
+	@Test
+	public void testServer() throws Exception {
+		File file = File.createTempFile("leaderboard", ".txt");
+		File journal = new File(file.getPath() + LeaderboardStore.JOURNAL_SUFFIX);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try (LeaderboardStore store = new LeaderboardStore(file)) {
+			LeaderboardServer server = new LeaderboardServer(store, 0, executor);
+			server.start();
+			try {
+				String base = "http://localhost:" + server.getPort();
+				assertEquals("{\"rank\":1}", request(base + "/scores", "{\"name\": \"a \\\"b\\\"\", \"score\": 50}"));
+				assertEquals("{\"rank\":1}", request(base + "/scores", "{\"name\":\"c\",\"score\":70,\"size\":4}"));
+				assertEquals("[{\"rank\":1,\"name\":\"c\",\"score\":70},{\"rank\":2,\"name\":\"a \\\"b\\\"\",\"score\":50}]",
+						request(base + "/top?size=4&k=5", null));
+				assertEquals("{\"rank\":2,\"count\":2}", request(base + "/rank?size=4&score=60", null));
+				assertEquals("A board size the game does not have should be refused", 400,
+						status(base + "/scores", "{\"name\":\"d\",\"score\":10,\"size\":3}"));
+				assertEquals(400, status(base + "/scores", "{\"name\":\"d\",\"score\":10,\"size\":9}"));
+				assertEquals(2, store.count(4));
+			} finally {
+				server.stop();
+			}
+		} finally {
+			executor.shutdown();
+			file.delete();
+			journal.delete();
+			new File(file.getPath() + LeaderboardStore.LOCK_SUFFIX).delete();
+		}
+	}
+
+	@Test
+	public void testClient() throws Exception {
+		File file = File.createTempFile("leaderboard", ".txt");
+		File journal = new File(file.getPath() + LeaderboardStore.JOURNAL_SUFFIX);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try (LeaderboardStore store = new LeaderboardStore(file)) {
+			LeaderboardServer server = new LeaderboardServer(store, 0, executor);
+			server.start();
+			try {
+				LeaderboardClient client = new LeaderboardClient(server.getPort());
+				assertEquals(1, client.add("a \"b\", [c]", 50, 5));
+				assertEquals(1, client.add("d", 70, 5));
+				assertEquals(3, client.rankOf(20, 5));
+				List<LeaderboardEntry> top = client.top(5, 10);
+				assertEquals(2, top.size());
+				assertEquals("d", top.get(0).getName());
+				assertEquals("a \"b\", [c]".replace(',', ' '), top.get(1).getName());
+				assertEquals(50, top.get(1).getScore());
+				assertEquals("Other sizes should have no scores", 0, client.top(4, 10).size());
+				try {
+					client.add("e", 10, 3);
+					fail("A refused score should be reported");
+				} catch (IOException e) {
+					// expected
+				}
+			} finally {
+				server.stop();
+			}
+		} finally {
+			executor.shutdown();
+			file.delete();
+			journal.delete();
+			new File(file.getPath() + LeaderboardStore.LOCK_SUFFIX).delete();
+		}
+	}
+
+	@Test
+	public void testServerCannotSave() throws Exception {
+		File file = File.createTempFile("leaderboard", ".txt");
+		File journal = new File(file.getPath() + LeaderboardStore.JOURNAL_SUFFIX);
+		ExecutorService executor = Executors.newFixedThreadPool(1);
+		LeaderboardStore store = new LeaderboardStore(file);
+		store.close(); // the journal can no longer be written
+		LeaderboardServer server = new LeaderboardServer(store, 0, executor);
+		server.start();
+		try {
+			assertEquals("A score that cannot be saved should be a server error", 500,
+					status("http://localhost:" + server.getPort() + "/scores", "{\"name\":\"d\",\"score\":10}"));
+		} finally {
+			server.stop();
+			executor.shutdown();
+			file.delete();
+			journal.delete();
+			new File(file.getPath() + LeaderboardStore.LOCK_SUFFIX).delete();
+		}
+	}
+
+	// sends a POST of body and reads only the status of the answer
+	private static int status(String url, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		return connection.getResponseCode();
+	}
+
+	// sends a GET, or a POST of body, and reads the answer
+	private static String request(String url, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		if (body != null) {
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		try (InputStream in = connection.getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * File: Metrics.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class times the game's hot paths so we can see where time goes: a
+ * LatencyHistogram each for moves, new tiles, game over checks, drawing the
+ * board, starting sounds and automated players choosing a move, plus a count
+ * of moves played. Once a second it samples how many moves were played and
+ * how many bytes every thread allocated since the last sample.
+ *
+ * Everything is off unless the JVM is started with -Dmetrics=true. ENABLED is
+ * a constant, so while it is false the JIT drops the timing calls from the
+ * code that makes them and they cost nothing. When on, the timers and rates
+ * are published as MXBeans under "game2048:type=Metrics" (for jconsole or
+ * VisualVM), and -Dmetrics.dump=SECONDS also prints report() to standard
+ * error that often.
+ *
+ * Timing a piece of code:
+ *   long start = Metrics.start();
+ *   ...
+ *   Metrics.stop(Metrics.MOVE, start);
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+public final class Metrics {
+	// whether anything is recorded, fixed when the class is loaded
+	public static final boolean ENABLED = Boolean.getBoolean("metrics");
+
+	public static final LatencyHistogram MOVE = new LatencyHistogram(); // every Board.move, rejected ones and spawn included
+	public static final LatencyHistogram SPAWN = new LatencyHistogram(); // adding a random tile
+	public static final LatencyHistogram GAME_OVER = new LatencyHistogram(); // Board.gameOverCode
+	public static final LatencyHistogram RENDER = new LatencyHistogram(); // View.refreshBoard
+	public static final LatencyHistogram SOUND = new LatencyHistogram(); // rewinding and starting a clip
+	public static final LatencyHistogram DECISION = new LatencyHistogram(); // Player.chooseMove
+	private static final LatencyHistogram[] TIMERS = {MOVE, SPAWN, GAME_OVER, RENDER, SOUND, DECISION};
+	private static final String[] NAMES = {"move", "spawn", "game over", "render", "sound", "decision"};
+
+	private static final long SAMPLE_MILLIS = 1000;
+	private static final LongAdder moves = new LongAdder(); // moves that changed a board
+	// rates over the last sample period, written by the sampler thread
+	private static volatile double movesPerSecond;
+	private static volatile double bytesPerSecond = -1; // -1 when the JVM cannot tell
+	private static long lastMoves;
+	private static long lastBytes;
+	private static long lastSample;
+
+	static {
+		if (ENABLED) {
+			register();
+			ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "metrics");
+				thread.setDaemon(true);
+				return thread;
+			});
+			lastSample = System.nanoTime();
+			lastBytes = allocatedBytes();
+			sampler.scheduleAtFixedRate(Metrics::sample, SAMPLE_MILLIS, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+			long dumpSeconds = Long.getLong("metrics.dump", 0);
+			if (dumpSeconds > 0) {
+				sampler.scheduleAtFixedRate(() -> System.err.print(report()), dumpSeconds, dumpSeconds,
+						TimeUnit.SECONDS);
+			}
+		}
+	}
+
+	private Metrics(){
+	}
+
+	/**
+	 * Reads the clock at the start of something to be timed
+	 *
+	 * @return long; the time in nanoseconds, or 0 when metrics are off
+	 */
+	public static long start(){
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records the time since start() in a timer
+	 *
+	 * @param timer: LatencyHistogram; one of the timers of this class
+	 * @param start: long; what start() returned
+	 */
+	public static void stop(LatencyHistogram timer, long start){
+		if (ENABLED) timer.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Counts a move that changed a board
+	 */
+	public static void countMove(){
+		if (ENABLED) moves.increment();
+	}
+
+	/**
+	 * Describes every timer and rate
+	 *
+	 * @return String; one line for the rates, then one line per timer that
+	 * has recorded anything
+	 */
+	public static String report(){
+		StringBuilder s = new StringBuilder();
+		double bytes = bytesPerSecond;
+		s.append(String.format("metrics: %d moves, %.0f moves/s, %s allocated%n", moves.sum(), movesPerSecond,
+				bytes < 0 ? "unknown" : String.format("%.1f MB/s", bytes / 1e6)));
+		for (int i=0; i<TIMERS.length; i++){
+			if (TIMERS[i].getCount() > 0) s.append(String.format("  %-9s %s%n", NAMES[i], TIMERS[i]));
+		}
+		return s.toString();
+	}
+
+	// works out the rates since the last sample
+	private static synchronized void sample(){
+		long now = System.nanoTime();
+		double seconds = (now - lastSample) / 1e9;
+		long played = moves.sum();
+		long bytes = allocatedBytes();
+		movesPerSecond = (played - lastMoves) / seconds;
+		// threads that ended since the last sample take their bytes with them,
+		// which can make the total go down
+		bytesPerSecond = bytes < 0 ? -1 : Math.max(0, bytes - lastBytes) / seconds;
+		lastSample = now;
+		lastMoves = played;
+		lastBytes = bytes;
+	}
+
+	// bytes allocated so far by the threads still running, -1 if unknown
+	private static long allocatedBytes(){
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+		com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+		if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled()) return -1;
+		long total = 0;
+		for (long bytes : hotspot.getThreadAllocatedBytes(threads.getAllThreadIds())){
+			if (bytes > 0) total += bytes; // -1 for threads that ended meanwhile
+		}
+		return total;
+	}
+
+	// publishes the rates and each timer to the platform MBean server
+	private static void register(){
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.registerMBean(new Throughput(), new ObjectName("game2048:type=Metrics,name=throughput"));
+			for (int i=0; i<TIMERS.length; i++){
+				server.registerMBean(new Latency(TIMERS[i]),
+						new ObjectName("game2048:type=Metrics,name=" + NAMES[i].replace(' ', '-')));
+			}
+		} catch (JMException e) {
+			System.err.println("Could not publish metrics: " + e.getMessage());
+		}
+	}
+
+	/*
+	 * This interface is what JMX shows of the move and allocation rates
+	 */
+	public interface ThroughputMXBean {
+		long getMoves();
+		double getMovesPerSecond();
+		double getAllocatedBytesPerSecond();
+	}
+
+	/*
+	 * This interface is what JMX shows of one timer, in microseconds
+	 */
+	public interface LatencyMXBean {
+		long getCount();
+		double getMeanMicros();
+		double getP50Micros();
+		double getP99Micros();
+		double getP999Micros();
+		double getMaxMicros();
+		void reset();
+	}
+
+	private static final class Throughput implements ThroughputMXBean {
+		@Override
+		public long getMoves(){
+			return moves.sum();
+		}
+
+		@Override
+		public double getMovesPerSecond(){
+			return movesPerSecond;
+		}
+
+		@Override
+		public double getAllocatedBytesPerSecond(){
+			return bytesPerSecond;
+		}
+	}
+
+	private static final class Latency implements LatencyMXBean {
+		private final LatencyHistogram timer;
+
+		Latency(LatencyHistogram timer){
+			this.timer = timer;
+		}
+
+		@Override
+		public long getCount(){
+			return timer.getCount();
+		}
+
+		@Override
+		public double getMeanMicros(){
+			return timer.getMean() / 1e3;
+		}
+
+		@Override
+		public double getP50Micros(){
+			return timer.getValueAtPercentile(50) / 1e3;
+		}
+
+		@Override
+		public double getP99Micros(){
+			return timer.getValueAtPercentile(99) / 1e3;
+		}
+
+		@Override
+		public double getP999Micros(){
+			return timer.getValueAtPercentile(99.9) / 1e3;
+		}
+
+		@Override
+		public double getMaxMicros(){
+			return timer.getMax() / 1e3;
+		}
+
+		@Override
+		public void reset(){
+			timer.reset();
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * File: MonteCarloPlayer.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is an automated player that picks a move by playing it out. For
+ * each direction it plays a number of games to the end with random moves and
+ * random spawns, then chooses the direction whose games reached the highest
+ * mean score (the sum of the tiles, as in Board.getScore()). Playouts run on
+ * a primitive copy of the board held by each thread, a long for 4x4 boards
+ * and a reused byte[] for larger ones, so they do not allocate.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+
+public class MonteCarloPlayer implements Player {
+	private static final int MAX_CELLS = 64; // an 8x8 board
+
+	// per thread scratch: the starting position and the board being played out
+	private static final ThreadLocal<byte[][]> SCRATCH =
+			ThreadLocal.withInitial(() -> new byte[2][MAX_CELLS]);
+
+	private final int playouts;
+	private final int threads;
+	private final ExecutorService pool; // null when playing out on the caller's thread
+	private final LongAdder played = new LongAdder(); // playouts finished, over every move
+
+	/*
+	 * Constructor for a player running the given number of playouts per
+	 * direction, spread over a number of threads
+	 * @param playouts - random games per direction, at least 1
+	 * @param threads - worker threads, 1 plays out on the calling thread
+	 */
+	public MonteCarloPlayer(int playouts, int threads){
+		if (playouts < 1 || threads < 1) {
+			throw new IllegalArgumentException("playouts and threads must be at least 1");
+		}
+		this.playouts = playouts;
+		this.threads = threads;
+		pool = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "monte-carlo");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Stops the worker threads; the player cannot be used afterwards
+	 */
+	public void shutdown(){
+		if (pool != null) pool.shutdown();
+	}
+
+	/**
+	 * Obtains how many random games have been played out
+	 *
+	 * @return long; playouts over every direction of every move chosen so far
+	 */
+	public long getPlayouts(){
+		return played.sum();
+	}
+
+	/**
+	 * Chooses the direction with the best mean playout score
+	 *
+	 * @return int; one of BitBoard.LEFT, RIGHT, UP or DOWN, or -1 if no move
+	 * changes the board
+	 */
+	@Override
+	public int chooseMove(Board board){
+		int size = board.getSize();
+		byte[] start = new byte[size*size];
+		board.copyCells(start);
+		long packed = size == BitBoard.SIZE ? board.packedState() : 0;
+
+		long[] totals = new long[4];
+		if (pool == null) {
+			played.add(playOut(packed, start, size, playouts, totals));
+		} else {
+			List<Future<long[]>> results = new ArrayList<>();
+			for (int t=0; t<threads; t++){
+				// spread the remainder so every thread gets an even share
+				int share = playouts / threads + (t < playouts % threads ? 1 : 0);
+				if (share == 0) continue;
+				Callable<long[]> task = () -> {
+					long[] partial = new long[4];
+					played.add(playOut(packed, start, size, share, partial));
+					return partial;
+				};
+				results.add(pool.submit(task));
+			}
+			try {
+				for (Future<long[]> result : results){
+					long[] partial = result.get();
+					for (int dir=0; dir<4; dir++){
+						totals[dir] += partial[dir];
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return -1;
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("playout failed", e.getCause());
+			}
+		}
+
+		int bestMove = -1;
+		for (int dir=0; dir<4; dir++){
+			if (totals[dir] >= 0 && (bestMove == -1 || totals[dir] > totals[bestMove])) bestMove = dir;
+		}
+		return bestMove;
+	}
+
+	// adds count playouts per direction to totals; a direction that does not
+	// change the board gets -1. Returns the number of playouts played
+	private static int playOut(long packed, byte[] start, int size, int count, long[] totals){
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int games = 0;
+		for (int dir=0; dir<4; dir++){
+			if (size == BitBoard.SIZE) {
+				long moved = BitBoard.move(packed, dir);
+				if (moved == packed) {
+					totals[dir] = -1;
+					continue;
+				}
+				for (int i=0; i<count; i++){
+					totals[dir] += playOutPacked(moved, random);
+				}
+				games += count;
+			} else {
+				byte[][] scratch = SCRATCH.get();
+				byte[] moved = scratch[0];
+				System.arraycopy(start, 0, moved, 0, size*size);
+				if (ByteBoard.move(moved, size, dir) < 0) {
+					totals[dir] = -1;
+					continue;
+				}
+				for (int i=0; i<count; i++){
+					System.arraycopy(moved, 0, scratch[1], 0, size*size);
+					totals[dir] += playOutCells(scratch[1], size, random);
+				}
+				games += count;
+			}
+		}
+		return games;
+	}
+
+	// plays random moves on a packed board until none is left, returning its score
+	private static int playOutPacked(long board, ThreadLocalRandom random){
+		while (true) {
+			board = spawn(board, random);
+			int first = random.nextInt(4);
+			long moved = board;
+			for (int k=0; k<4 && moved == board; k++){
+				moved = BitBoard.move(board, (first + k) & 3);
+			}
+			if (moved == board) return BitBoard.sum(board);
+			board = moved;
+		}
+	}
+
+	// plays random moves on a byte board in place until none is left, returning its score
+	private static int playOutCells(byte[] cells, int size, ThreadLocalRandom random){
+		int tiles = size*size;
+		while (true) {
+			spawn(cells, tiles, random);
+			int first = random.nextInt(4);
+			boolean moved = false;
+			for (int k=0; k<4 && !moved; k++){
+				moved = ByteBoard.move(cells, size, (first + k) & 3) >= 0;
+			}
+			if (!moved) {
+				int sum = 0;
+				for (int i=0; i<tiles; i++){
+					sum += BitBoard.valueOf(cells[i]);
+				}
+				return sum;
+			}
+		}
+	}
+
+	// picks a spawn value with the same odds as Board.addRandomTile()
+	private static int spawnExponent(ThreadLocalRandom random){
+		return BitBoard.exponentOf(Board.RANDOM_DISTRIBUTION[random.nextInt(Board.RANDOM_DISTRIBUTION.length)]);
+	}
+
+	// adds a tile to a uniformly chosen empty cell of a packed board
+	private static long spawn(long board, ThreadLocalRandom random){
+		long empty = BitBoard.emptyMask(board);
+		if (empty == 0) return board;
+		int bit = BitBoard.selectBit(empty, random.nextInt(Long.bitCount(empty)));
+		return board | ((long) spawnExponent(random) << bit);
+	}
+
+	// adds a tile to a uniformly chosen empty cell of a byte board
+	private static void spawn(byte[] cells, int tiles, ThreadLocalRandom random){
+		int empty = 0;
+		for (int i=0; i<tiles; i++){
+			if (cells[i] == 0) empty++;
+		}
+		if (empty == 0) return;
+		int target = random.nextInt(empty);
+		for (int i=0; i<tiles; i++){
+			if (cells[i] == 0 && target-- == 0) {
+				cells[i] = (byte) spawnExponent(random);
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MonteCarloPlayerTest {
+
+	// a full board of the given size with no two neighbours alike
+	private static Board deadBoard(int size) {
+		Board board = new Board(size, 1L);
+		for (int i = 0; i < size * size; i++) {
+			board.add(new Tile((i / size + i % size) % 2 == 0 ? 2 : 4), i / size, i % size);
+		}
+		return board;
+	}
+
+	// the number of directions that change a board
+	private static int legalMoves(Board board) {
+		int legal = 0;
+		for (int dir = 0; dir < 4; dir++) {
+			if (board.emptyAfterShift(dir) >= 0) legal++;
+		}
+		return legal;
+	}
+
+	// plays some moves, checking each one changes the board
+	private static void playsOnlyLegalMoves(MonteCarloPlayer player, int size, long seed) {
+		Board board = new Board(size, seed);
+		for (int n = 0; n < 25 && board.gameOverCode() == 0; n++) {
+			int dir = player.chooseMove(board);
+			assertTrue("A board with moves left should get a move", dir >= 0);
+			assertTrue("The chosen move should change the board", MoveResult.changed(board.move(dir, true)));
+		}
+	}
+
+	@Test
+	public void testPlaysOnlyLegalMoves() {
+		MonteCarloPlayer single = new MonteCarloPlayer(8, 1);
+		MonteCarloPlayer parallel = new MonteCarloPlayer(8, 3);
+		try {
+			playsOnlyLegalMoves(single, 4, 2L);
+			playsOnlyLegalMoves(single, 5, 2L);
+			playsOnlyLegalMoves(parallel, 4, 3L);
+			playsOnlyLegalMoves(parallel, 6, 3L);
+		} finally {
+			parallel.shutdown();
+		}
+	}
+
+	@Test
+	public void testNoMoveOnDeadBoard() {
+		MonteCarloPlayer player = new MonteCarloPlayer(4, 2);
+		try {
+			assertEquals("A lost 4x4 board should have no move", -1, player.chooseMove(deadBoard(4)));
+			assertEquals("A lost 5x5 board should have no move", -1, player.chooseMove(deadBoard(5)));
+			assertEquals("A lost board should play nothing out", 0, player.getPlayouts());
+		} finally {
+			player.shutdown();
+		}
+	}
+
+	@Test
+	public void testThreadsShareThePlayouts() {
+		// more threads than playouts leaves some threads without a share
+		int[][] splits = {{10, 1}, {10, 3}, {7, 4}, {2, 4}};
+		for (int[] split : splits) {
+			MonteCarloPlayer player = new MonteCarloPlayer(split[0], split[1]);
+			try {
+				Board board = new Board(4, 11L);
+				long expected = 0;
+				for (int n = 0; n < 5 && board.gameOverCode() == 0; n++) {
+					expected += (long) split[0] * legalMoves(board);
+					board.move(player.chooseMove(board), true);
+				}
+				assertEquals(split[0] + " playouts on " + split[1] + " threads should all be played", expected,
+						player.getPlayouts());
+			} finally {
+				player.shutdown();
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * File: MoveHistory.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class remembers the last positions of a board for undo and redo. The
+ * positions sit in a ring buffer whose slots are allocated once, a long per
+ * slot for a 4x4 board and a byte[] per slot for larger ones, so recording a
+ * move only copies the tiles. When the ring is full the oldest position is
+ * forgotten, and making a new move after an undo drops the positions that
+ * could have been redone.
+ */
+
+
+public class MoveHistory {
+	private final int slots; // undo levels plus the current position
+	private final long[] packed; // ring of 4x4 positions, null for larger boards
+	private final byte[][] cells; // ring of larger positions, null for 4x4
+	private int oldest; // ring index of the oldest position
+	private int count; // positions stored, including any that can be redone
+	private int current; // positions before the current one, 0..count-1
+
+	/*
+	 * Constructor for an empty history
+	 * @param levels - the number of moves that can be undone, at least 1
+	 * @param size - size of the board between 4 - 8
+	 */
+	public MoveHistory(int levels, int size){
+		if (levels < 1) throw new IllegalArgumentException("levels must be at least 1");
+		slots = levels + 1;
+		if (size == BitBoard.SIZE) {
+			packed = new long[slots];
+			cells = null;
+		} else {
+			packed = null;
+			cells = new byte[slots][size*size];
+		}
+	}
+
+	/**
+	 * Stores the position of the board as the current one
+	 *
+	 * @param board: Board; the board after its latest move
+	 */
+	public void record(Board board){
+		if (count > 0) {
+			count = current + 1; // a new move replaces whatever could be redone
+			if (count == slots) {
+				oldest = (oldest + 1) % slots;
+				count--;
+			}
+			current = count;
+		}
+		count++;
+		int slot = (oldest + current) % slots;
+		if (packed != null) {
+			packed[slot] = board.packedState();
+		} else {
+			board.copyCells(cells[slot]);
+		}
+	}
+
+	/**
+	 * Puts the board back to the position before the current one
+	 *
+	 * @return boolean; false if there is nothing to undo
+	 */
+	public boolean undo(Board board){
+		if (current == 0) return false;
+		current--;
+		load(board);
+		return true;
+	}
+
+	/**
+	 * Puts the board back to the position an undo went away from
+	 *
+	 * @return boolean; false if there is nothing to redo
+	 */
+	public boolean redo(Board board){
+		if (current + 1 >= count) return false;
+		current++;
+		load(board);
+		return true;
+	}
+
+	/**
+	 * Forgets every stored position
+	 */
+	public void clear(){
+		oldest = 0;
+		count = 0;
+		current = 0;
+	}
+
+	// copies the current position into the board
+	private void load(Board board){
+		int slot = (oldest + current) % slots;
+		if (packed != null) {
+			board.load(packed[slot]);
+		} else {
+			board.load(cells[slot]);
+		}
+	}
+}
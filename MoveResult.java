@@ -0,0 +1,95 @@
+/*
+ * File: MoveResult.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class reads the result of Board.move(). To avoid creating an object
+ * for every move, the result is a single long laid out as follows:
+ *
+ *   bit  0      - whether any tile moved or merged
+ *   bits 1-7    - number of merges
+ *   bits 8-15   - row major index of the spawned tile plus one, 0 if none
+ *   bits 16-19  - exponent of the spawned tile (1 for a 2, 2 for a 4)
+ *   bits 32-63  - points earned by the merges, the sum of the merged tiles
+ *
+ * A move that changes nothing is NONE (0).
+ */
+
+
+public final class MoveResult {
+	public static final long NONE = 0;
+
+	private static final long CHANGED = 1;
+	private static final int MERGE_SHIFT = 1;
+	private static final int SPAWN_CELL_SHIFT = 8;
+	private static final int SPAWN_EXPONENT_SHIFT = 16;
+	private static final int SCORE_SHIFT = 32;
+
+	// no instances, this class only groups static helpers
+	private MoveResult(){
+	}
+
+	// packs the result of a move that changed the board; spawnCell is -1 when
+	// no tile was added
+	static long of(int mergeScore, int merges, int spawnCell, int spawnExponent){
+		return CHANGED
+				| (long) merges << MERGE_SHIFT
+				| (long) (spawnCell + 1) << SPAWN_CELL_SHIFT
+				| (long) (spawnCell < 0 ? 0 : spawnExponent) << SPAWN_EXPONENT_SHIFT
+				| (long) mergeScore << SCORE_SHIFT;
+	}
+
+	/**
+	 * Determines whether the move changed the board
+	 *
+	 * @return boolean; false if no tile could move in that direction
+	 */
+	public static boolean changed(long result){
+		return (result & CHANGED) != 0;
+	}
+
+	/**
+	 * Obtains the number of merges the move made
+	 *
+	 * @return int; each merge removes one tile from the board
+	 */
+	public static int merges(long result){
+		return (int) (result >>> MERGE_SHIFT) & 0x7F;
+	}
+
+	/**
+	 * Obtains the points earned by the move
+	 *
+	 * @return int; sum of the values of the tiles created by merges
+	 */
+	public static int mergeScore(long result){
+		return (int) (result >>> SCORE_SHIFT);
+	}
+
+	/**
+	 * Determines whether a new tile was added after the move
+	 *
+	 * @return boolean; false if the move did not change the board or was
+	 * made without spawning
+	 */
+	public static boolean spawned(long result){
+		return spawnCell(result) >= 0;
+	}
+
+	/**
+	 * Obtains where the new tile was added
+	 *
+	 * @return int; row major index (y*size + x), -1 if nothing was spawned
+	 */
+	public static int spawnCell(long result){
+		return (int) ((result >>> SPAWN_CELL_SHIFT) & 0xFF) - 1;
+	}
+
+	/**
+	 * Obtains the value of the new tile
+	 *
+	 * @return int; 2 or 4, 0 if nothing was spawned
+	 */
+	public static int spawnValue(long result){
+		return BitBoard.valueOf((int) (result >>> SPAWN_EXPONENT_SHIFT) & 0xF);
+	}
+}
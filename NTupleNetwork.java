@@ -0,0 +1,241 @@
+/*
+ * File: NTupleNetwork.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is an n-tuple network: a learned value function for packed 4x4
+ * boards (see BitBoard). Each tuple is a fixed group of cells, and its
+ * weight table holds one float for every combination of exponents those
+ * cells can hold, 16^n of them for n cells. The value of a board is the sum,
+ * over every tuple and each of the board's 8 rotations and reflections, of
+ * the weight its cells pick out, so a pattern learned in one corner is known
+ * in all of them.
+ *
+ * Weights are plain float[] tables that NTupleTrainer updates from many
+ * threads at once without locks; an update now and then lost to a race costs
+ * less than the locking would. Networks are saved to and loaded from a
+ * memory-mapped file:
+ *
+ *   "NTUP"                    magic
+ *   int version               1
+ *   int tuples                number of tuples
+ *   per tuple: int n, n ints  the cells of the tuple, row major
+ *   per tuple: 16^n floats    its weights, in tuple order
+ *
+ * all in big endian byte order.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+
+public class NTupleNetwork {
+	private static final int MAGIC = 0x4E545550; // "NTUP"
+	private static final int VERSION = 1;
+	private static final int SYMMETRIES = 8;
+
+	// four 6-tuples, two straight and two bent, with 16^6 weights each (about
+	// 270 MB in all); they learn to reach 2048 in most games
+	public static final int[][] STANDARD = {
+			{0, 1, 2, 3, 4, 5}, {4, 5, 6, 7, 8, 9}, {0, 1, 2, 4, 5, 6}, {4, 5, 6, 8, 9, 10}};
+	// rows and squares of four cells, 1.3 MB in all, for quick experiments
+	public static final int[][] SMALL = {
+			{0, 1, 2, 3}, {4, 5, 6, 7}, {0, 1, 4, 5}, {1, 2, 5, 6}, {5, 6, 9, 10}};
+
+	private final int[][] tuples; // cells of each tuple
+	private final float[][] weights; // weights of each tuple, indexed by its cells' exponents
+	// shifts[t][s][i] is the bit offset in the packed board of cell i of tuple
+	// t under symmetry s
+	private final int[][][] shifts;
+	private final int features; // weights read for one board
+
+	/*
+	 * Constructor for a network with every weight 0
+	 * @param tuples - the cells of each tuple, row major from 0 to 15, at
+	 * most 7 cells each
+	 */
+	public NTupleNetwork(int[][] tuples){
+		this.tuples = new int[tuples.length][];
+		this.weights = new float[tuples.length][];
+		this.shifts = new int[tuples.length][SYMMETRIES][];
+		for (int t=0; t<tuples.length; t++){
+			if (tuples[t].length < 1 || tuples[t].length > 7) {
+				throw new IllegalArgumentException("a tuple has 1 to 7 cells, not " + tuples[t].length);
+			}
+			for (int cell : tuples[t]){
+				if (cell < 0 || cell >= BitBoard.SIZE*BitBoard.SIZE) {
+					throw new IllegalArgumentException("a cell is numbered 0 to 15, not " + cell);
+				}
+			}
+			this.tuples[t] = tuples[t].clone();
+			this.weights[t] = new float[1 << (4*tuples[t].length)];
+			for (int s=0; s<SYMMETRIES; s++){
+				shifts[t][s] = new int[tuples[t].length];
+				for (int i=0; i<tuples[t].length; i++){
+					shifts[t][s][i] = 4*symmetric(tuples[t][i], s);
+				}
+			}
+		}
+		this.features = tuples.length*SYMMETRIES;
+	}
+
+	/**
+	 * Estimates the points still to be made from a board
+	 *
+	 * @param board: long; a packed board
+	 * @return float; the sum of the weights the board picks out
+	 */
+	public float value(long board){
+		float value = 0;
+		for (int t=0; t<tuples.length; t++){
+			float[] table = weights[t];
+			for (int s=0; s<SYMMETRIES; s++){
+				value += table[index(board, shifts[t][s])];
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Moves the value of a board by spreading a change evenly over the
+	 * weights it picks out; a weight picked out under more than one symmetry
+	 * gets a share for each, so the value can move by more than delta. Safe to
+	 * call from many threads, though an update racing another on the same
+	 * weight may be lost
+	 *
+	 * @param board: long; a packed board
+	 * @param delta: float; the change wanted in value(board)
+	 */
+	public void update(long board, float delta){
+		float share = delta / features;
+		for (int t=0; t<tuples.length; t++){
+			float[] table = weights[t];
+			for (int s=0; s<SYMMETRIES; s++){
+				table[index(board, shifts[t][s])] += share;
+			}
+		}
+	}
+
+	/**
+	 * Obtains the tuples of the network
+	 *
+	 * @return int[][]; a copy of the cells of each tuple
+	 */
+	public int[][] getTuples(){
+		int[][] copy = new int[tuples.length][];
+		for (int t=0; t<tuples.length; t++){
+			copy[t] = tuples[t].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * Writes the network to a file through a memory map
+	 *
+	 * @param file: File; replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(File file) throws IOException {
+		long header = 12;
+		for (int[] tuple : tuples){
+			header += 4 + 4L*tuple.length;
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_WRITE, 0, header);
+			head.putInt(MAGIC).putInt(VERSION).putInt(tuples.length);
+			for (int[] tuple : tuples){
+				head.putInt(tuple.length);
+				for (int cell : tuple){
+					head.putInt(cell);
+				}
+			}
+			head.force();
+			long position = header;
+			for (float[] table : weights){
+				// one map per table keeps every map well under 2 GB
+				MappedByteBuffer body = channel.map(FileChannel.MapMode.READ_WRITE, position, 4L*table.length);
+				body.asFloatBuffer().put(table);
+				body.force();
+				position += 4L*table.length;
+			}
+		}
+	}
+
+	/**
+	 * Reads a network saved with save(); the weights are copied out of a
+	 * memory map in bulk, so even a large network loads at the speed of
+	 * memory once the file is in the page cache
+	 *
+	 * @param file: File; a saved network
+	 * @return NTupleNetwork; the network with its weights
+	 * @throws IOException if the file cannot be read or is not a network
+	 */
+	public static NTupleNetwork load(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < 12) throw new IOException(file + " is not an n-tuple network");
+			ByteBuffer start = channel.map(FileChannel.MapMode.READ_ONLY, 0, 12);
+			if (start.getInt() != MAGIC) throw new IOException(file + " is not an n-tuple network");
+			int version = start.getInt();
+			if (version != VERSION) throw new IOException(file + " has version " + version);
+			int count = start.getInt();
+			// each tuple takes its length and 1 to 7 cells
+			long longest = 12 + (4 + 4L*7)*count;
+			if (count < 0 || longest > Integer.MAX_VALUE) throw new IOException(file + " has " + count + " tuples");
+			ByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, longest));
+			head.position(12);
+			int[][] tuples = new int[count][];
+			for (int t=0; t<count; t++){
+				if (head.remaining() < 4) throw new IOException(file + " is cut short");
+				int length = head.getInt();
+				if (length < 1 || length > 7) throw new IOException(file + " has a tuple of " + length + " cells");
+				if (head.remaining() < 4*length) throw new IOException(file + " is cut short");
+				tuples[t] = new int[length];
+				for (int i=0; i<length; i++){
+					tuples[t][i] = head.getInt();
+					if (tuples[t][i] < 0 || tuples[t][i] >= BitBoard.SIZE*BitBoard.SIZE) {
+						throw new IOException(file + " has a tuple with cell " + tuples[t][i]);
+					}
+				}
+			}
+			NTupleNetwork network = new NTupleNetwork(tuples);
+			long position = head.position();
+			for (float[] table : network.weights){
+				if (position + 4L*table.length > size) throw new IOException(file + " is cut short");
+				FloatBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L*table.length).asFloatBuffer();
+				body.get(table);
+				position += 4L*table.length;
+			}
+			return network;
+		}
+	}
+
+	// the exponents of a tuple's cells packed into a table index
+	private static int index(long board, int[] shifts){
+		int index = 0;
+		for (int i=0; i<shifts.length; i++){
+			index |= (int) ((board >>> shifts[i]) & 0xF) << (4*i);
+		}
+		return index;
+	}
+
+	// where a cell ends up under one of the 8 rotations and reflections
+	private static int symmetric(int cell, int symmetry){
+		int y = cell / BitBoard.SIZE;
+		int x = cell % BitBoard.SIZE;
+		int last = BitBoard.SIZE - 1;
+		for (int r=0; r<(symmetry & 3); r++){
+			// rotate a quarter turn clockwise
+			int turned = x;
+			x = last - y;
+			y = turned;
+		}
+		if (symmetry >= 4) x = last - x; // mirror
+		return y*BitBoard.SIZE + x;
+	}
+}
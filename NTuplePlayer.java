@@ -0,0 +1,54 @@
+/*
+ * File: NTuplePlayer.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is an automated player driven by a trained NTupleNetwork. It
+ * looks one move ahead: each move is worth the points its merges make plus
+ * the network's estimate for the board right after it, before the new tile
+ * lands. Only 4x4 boards are supported.
+ */
+
+
+public class NTuplePlayer implements Player {
+	private final NTupleNetwork network;
+
+	/*
+	 * Constructor for a player using a network, which may be shared
+	 * @param network - the value function to play by
+	 */
+	public NTuplePlayer(NTupleNetwork network){
+		this.network = network;
+	}
+
+	/**
+	 * Chooses the move with the best points plus estimated value
+	 *
+	 * @pre board.getSize() == 4
+	 * @return int; one of BitBoard.LEFT, RIGHT, UP or DOWN, or -1 if no move
+	 * changes the board
+	 */
+	@Override
+	public int chooseMove(Board board){
+		return chooseMove(network, board.packedState());
+	}
+
+	/**
+	 * Chooses the best move for a packed board by the network's estimate
+	 *
+	 * @return int; a BitBoard direction, or -1 if no move changes the board
+	 */
+	public static int chooseMove(NTupleNetwork network, long board){
+		int bestMove = -1;
+		float bestValue = Float.NEGATIVE_INFINITY;
+		for (int dir=0; dir<4; dir++){
+			long moved = BitBoard.move(board, dir);
+			if (moved == board) continue;
+			float value = BitBoard.moveScore(board, dir) + network.value(moved);
+			if (value > bestValue) {
+				bestValue = value;
+				bestMove = dir;
+			}
+		}
+		return bestMove;
+	}
+}
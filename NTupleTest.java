@@ -0,0 +1,143 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+public class NTupleTest {
+	// a board with no symmetry of its own, so every transform gives a new board
+	private static long lopsided(){
+		long board = 0;
+		board = BitBoard.set(board, 0, 0, 1);
+		board = BitBoard.set(board, 0, 1, 3);
+		board = BitBoard.set(board, 1, 0, 2);
+		board = BitBoard.set(board, 2, 3, 5);
+		return board;
+	}
+
+	// mirrors a packed board left to right
+	private static long mirror(long board){
+		long mirrored = 0;
+		for (int y = 0; y < BitBoard.SIZE; y++) {
+			for (int x = 0; x < BitBoard.SIZE; x++) {
+				int exponent = (int) ((board >>> (4 * (y * BitBoard.SIZE + x))) & 0xF);
+				mirrored = BitBoard.set(mirrored, y, BitBoard.SIZE - 1 - x, exponent);
+			}
+		}
+		return mirrored;
+	}
+
+	@Test
+	public void testUpdateMovesValue() {
+		NTupleNetwork network = new NTupleNetwork(NTupleNetwork.SMALL);
+		long board = lopsided();
+		assertEquals("A new network should value every board at 0", 0f, network.value(board), 0f);
+
+		network.update(board, 12f);
+		assertTrue("An update should move the value toward its delta", network.value(board) > 0);
+		for (int i = 0; i < 100; i++) {
+			network.update(board, 0.1f * (12f - network.value(board)));
+		}
+		assertEquals("Repeated updates should settle on the target", 12f, network.value(board), 1e-3f);
+	}
+
+	@Test
+	public void testSymmetricBoardsValuedAlike() {
+		NTupleNetwork network = new NTupleNetwork(NTupleNetwork.SMALL);
+		long board = lopsided();
+		network.update(board, 40f);
+
+		float value = network.value(board);
+		assertEquals("A transposed board should have the same value", value,
+				network.value(BitBoard.transpose(board)), 1e-4f);
+		assertEquals("A mirrored board should have the same value", value, network.value(mirror(board)), 1e-4f);
+	}
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		NTupleNetwork network = new NTupleNetwork(NTupleNetwork.SMALL);
+		new NTupleTrainer(network, 0.1f, 3L).train(20, 2, 0, null);
+
+		File file = File.createTempFile("ntuple", ".bin");
+		try {
+			network.save(file);
+			NTupleNetwork loaded = NTupleNetwork.load(file);
+			assertArrayEquals(NTupleNetwork.SMALL, loaded.getTuples());
+			Board board = new Board(BitBoard.SIZE, 9L);
+			for (int i = 0; i < 30; i++) {
+				long state = board.packedState();
+				assertEquals("A loaded network should value boards the same", network.value(state),
+						loaded.value(state), 0f);
+				int dir = NTuplePlayer.chooseMove(loaded, state);
+				if (dir < 0) break;
+				board.move(dir, true);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testLoadManyTuples() throws Exception {
+		// a header well past the first page of the file
+		int[][] tuples = new int[600][];
+		for (int t = 0; t < tuples.length; t++) {
+			tuples[t] = new int[] {t % 16};
+		}
+		NTupleNetwork network = new NTupleNetwork(tuples);
+		network.update(lopsided(), 5f);
+
+		File file = File.createTempFile("ntuple", ".bin");
+		try {
+			network.save(file);
+			NTupleNetwork loaded = NTupleNetwork.load(file);
+			assertArrayEquals(tuples, loaded.getTuples());
+			assertEquals(network.value(lopsided()), loaded.value(lopsided()), 0f);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testLoadRejectsBadCells() throws Exception {
+		File file = File.createTempFile("ntuple", ".bin");
+		try {
+			new NTupleNetwork(new int[][] {{0, 1}}).save(file);
+			try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+				raw.seek(20); // the second cell of the only tuple
+				raw.writeInt(16);
+			}
+			try {
+				NTupleNetwork.load(file);
+				fail("A cell off the board should not load");
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			file.delete();
+		}
+		try {
+			new NTupleNetwork(new int[][] {{0, -1}});
+			fail("A cell off the board should be refused");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTrainingLearnsFromGames() throws Exception {
+		NTupleNetwork network = new NTupleNetwork(NTupleNetwork.SMALL);
+		Board start = new Board(BitBoard.SIZE, 1L);
+		assertEquals(0f, network.value(start.packedState()), 0f);
+
+		new NTupleTrainer(network, 0.1f, 1L).train(50, 2, 0, null);
+		assertTrue("Training should value a fresh board above 0",
+				network.value(BitBoard.move(start.packedState(), BitBoard.LEFT)) > 0);
+
+		Board end = new NTupleTrainer(network, 0.1f, 1L).playEpisode(100L);
+		assertEquals("An episode should play until the board is lost", -1,
+				new NTuplePlayer(network).chooseMove(end));
+	}
+}
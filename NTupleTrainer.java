@@ -0,0 +1,176 @@
+/*
+ * File: NTupleTrainer.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class trains an NTupleNetwork by temporal difference learning over
+ * games the network plays against itself on Board. The network values the
+ * board right after a move, before the new tile lands (the afterstate). At
+ * every move of a game the value of the previous afterstate is pulled toward
+ * the points the next move makes plus the value of the next afterstate, and
+ * the last afterstate of a lost game toward 0, so the network learns to
+ * estimate the points still to come.
+ *
+ * Several threads play games at once and update the one network without
+ * locks (Hogwild): the tables are large and games rarely touch the same
+ * weight at the same moment, so the few updates lost to races do not slow
+ * learning down the way locking would.
+ *
+ * Usage: java NTupleTrainer [--episodes N] [--threads T] [--alpha A]
+ *            [--tuples small|standard] [--network FILE] [--report N]
+ *            [--seed S]
+ * An existing network file is trained further and saved again at the end
+ * and after every report.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public class NTupleTrainer {
+	private final NTupleNetwork network;
+	private final float alpha;
+	private final long seed;
+	private final AtomicInteger nextEpisode = new AtomicInteger(); // episodes handed out
+	private final AtomicInteger finished = new AtomicInteger(); // episodes played
+	// totals of the episodes played since the last report
+	private final AtomicInteger episodes = new AtomicInteger();
+	private final AtomicLong totalScore = new AtomicLong();
+	private final AtomicLong totalMoves = new AtomicLong();
+	private final AtomicInteger reached2048 = new AtomicInteger();
+	private long reportStarted; // when the last report was printed, guarded by this
+
+	/*
+	 * Constructor for a trainer of a network
+	 * @param network - trained in place
+	 * @param alpha - learning rate, the part of each error corrected
+	 * @param seed - episode e plays the board seeded seed + e
+	 */
+	public NTupleTrainer(NTupleNetwork network, float alpha, long seed){
+		this.network = network;
+		this.alpha = alpha;
+		this.seed = seed;
+	}
+
+	/**
+	 * Plays one game and learns from each of its moves
+	 *
+	 * @param gameSeed: long; seed of the board
+	 * @return Board; the board at the end of the game
+	 */
+	public Board playEpisode(long gameSeed){
+		Board board = new Board(BitBoard.SIZE, gameSeed);
+		long afterstate = -1; // none before the first move
+		int moves = 0;
+		while (true) {
+			long state = board.packedState();
+			int dir = NTuplePlayer.chooseMove(network, state);
+			if (dir < 0) break;
+			long next = BitBoard.move(state, dir);
+			if (afterstate != -1) {
+				learn(afterstate, BitBoard.moveScore(state, dir) + network.value(next));
+			}
+			afterstate = next;
+			board.move(dir, true);
+			moves++;
+		}
+		// no points come after a lost board
+		if (afterstate != -1) learn(afterstate, 0);
+		episodes.incrementAndGet();
+		totalScore.addAndGet(board.getScore());
+		totalMoves.addAndGet(moves);
+		if (board.getMaxTile() >= 2048) reached2048.incrementAndGet();
+		return board;
+	}
+
+	/**
+	 * Plays episodes on several threads until the given number has been
+	 * played, printing progress every so often
+	 *
+	 * @param episodes: int; games to play
+	 * @param threads: int; games played at the same time
+	 * @param report: int; episodes between progress lines, 0 for none
+	 * @param checkpoint: File; where the network is saved at each report,
+	 * null to not save it
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	public void train(int episodes, int threads, int report, File checkpoint) throws InterruptedException {
+		nextEpisode.set(0);
+		synchronized (this) {
+			reportStarted = System.nanoTime();
+		}
+		Thread[] workers = new Thread[threads];
+		for (int i=0; i<threads; i++){
+			workers[i] = new Thread(() -> {
+				int episode;
+				while ((episode = nextEpisode.getAndIncrement()) < episodes) {
+					playEpisode(seed + episode);
+					int done = finished.incrementAndGet();
+					if (report > 0 && done % report == 0) report(done, checkpoint);
+				}
+			}, "trainer " + i);
+			workers[i].start();
+		}
+		for (Thread worker : workers){
+			worker.join();
+		}
+	}
+
+	// moves the value of an afterstate part of the way toward a target
+	private void learn(long afterstate, float target){
+		network.update(afterstate, alpha * (target - network.value(afterstate)));
+	}
+
+	// prints how the last episodes went and saves the network
+	private synchronized void report(int done, File checkpoint){
+		long now = System.nanoTime();
+		double seconds = (now - reportStarted) / 1e9;
+		reportStarted = now;
+		int count = episodes.getAndSet(0);
+		long score = totalScore.getAndSet(0);
+		long moves = totalMoves.getAndSet(0);
+		int wins = reached2048.getAndSet(0);
+		System.out.printf("%d episodes: mean score %.0f, 2048 reached in %d of %d, %.0f moves/s%n", done,
+				(double) score / Math.max(1, count), wins, count, moves / seconds);
+		if (checkpoint != null) {
+			try {
+				network.save(checkpoint);
+			} catch (IOException e) {
+				System.err.println("Could not save " + checkpoint + ": " + e.getMessage());
+			}
+		}
+	}
+
+	// running this trains a network and saves it
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> options = new HashMap<>();
+		for (int i=0; i+1<args.length; i+=2){
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("expected an option but got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i+1]);
+		}
+		int episodes = Integer.parseInt(options.getOrDefault("episodes", "10000"));
+		int threads = Integer.parseInt(options.getOrDefault("threads",
+				Integer.toString(Runtime.getRuntime().availableProcessors())));
+		float alpha = Float.parseFloat(options.getOrDefault("alpha", "0.1"));
+		int report = Integer.parseInt(options.getOrDefault("report", "1000"));
+		long seed = Long.parseLong(options.getOrDefault("seed", Long.toString(System.nanoTime())));
+		File file = new File(options.getOrDefault("network", "ntuple.bin"));
+
+		NTupleNetwork network;
+		if (file.exists()) {
+			long start = System.nanoTime();
+			network = NTupleNetwork.load(file);
+			System.out.printf("Loaded %s in %.0f ms%n", file, (System.nanoTime() - start) / 1e6);
+		} else {
+			network = new NTupleNetwork(options.getOrDefault("tuples", "small").equals("standard")
+					? NTupleNetwork.STANDARD : NTupleNetwork.SMALL);
+		}
+		new NTupleTrainer(network, alpha, seed).train(episodes, threads, report, file);
+		network.save(file);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * File: ParallelExpectimaxPlayer.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is an ExpectimaxPlayer that spreads its search over several
+ * threads with a ForkJoinPool. The root is split into one task per move, and
+ * each of those into one task per possible spawn (every empty cell with a 2
+ * and with a 4). Below that first chance layer every task runs an ordinary
+ * sequential search, and all of them share a ConcurrentTranspositionTable so
+ * a position solved by one thread is reused by the others.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+public class ParallelExpectimaxPlayer extends ExpectimaxPlayer {
+	private final ForkJoinPool pool;
+	// one sequential searcher per pool thread, reset before each branch
+	private final ThreadLocal<ExpectimaxPlayer> workers = ThreadLocal.withInitial(this::newWorker);
+	private volatile long deadline;
+	private volatile boolean timedOut;
+
+	/*
+	 * Constructor for a parallel player with its own shared table
+	 * @param maxDepth - number of player moves to look ahead at most
+	 * @param timeBudgetMillis - time allowed per move, 0 for no limit
+	 * @param threads - number of worker threads, at least 1
+	 */
+	public ParallelExpectimaxPlayer(int maxDepth, long timeBudgetMillis, int threads){
+		this(maxDepth, timeBudgetMillis, threads, new ConcurrentTranspositionTable(22));
+	}
+
+	/*
+	 * Constructor for a parallel player using the given shared table
+	 * @param maxDepth - number of player moves to look ahead at most
+	 * @param timeBudgetMillis - time allowed per move, 0 for no limit
+	 * @param threads - number of worker threads, at least 1
+	 * @param table - cache shared by all workers and every move
+	 */
+	public ParallelExpectimaxPlayer(int maxDepth, long timeBudgetMillis, int threads, ConcurrentTranspositionTable table){
+		super(maxDepth, timeBudgetMillis, table);
+		pool = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Stops the worker threads; the player cannot be used afterwards
+	 */
+	public void shutdown(){
+		pool.shutdown();
+	}
+
+	@Override
+	protected void beginSearch(long deadlineNanos){
+		super.beginSearch(deadlineNanos);
+		deadline = deadlineNanos;
+		timedOut = false;
+	}
+
+	@Override
+	protected boolean isTimedOut(){
+		return timedOut;
+	}
+
+	@Override
+	protected int searchRoot(long board, int depth){
+		List<MoveTask> moves = new ArrayList<>();
+		for (int dir=0; dir<4; dir++){
+			long moved = BitBoard.move(board, dir);
+			if (moved != board) moves.add(new MoveTask(dir, moved, depth - 1)); // the root move is one of depth
+		}
+		for (MoveTask move : moves){
+			pool.execute(move);
+		}
+
+		int bestMove = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (MoveTask move : moves){
+			double value = move.join();
+			if (value > bestValue) {
+				bestValue = value;
+				bestMove = move.direction;
+			}
+		}
+		return bestMove;
+	}
+
+	// a sequential searcher for a pool thread, sharing this player's table and evaluator
+	protected ExpectimaxPlayer newWorker(){
+		return new ExpectimaxPlayer(maxDepth, timeBudgetNanos / 1_000_000L, table, evaluator);
+	}
+
+	// the first chance node after a root move, split into one task per spawn
+	@SuppressWarnings("serial") // tasks are never serialized
+	private class MoveTask extends RecursiveTask<Double> {
+		private final int direction;
+		private final long board;
+		private final int depth;
+
+		MoveTask(int direction, long board, int depth){
+			this.direction = direction;
+			this.board = board;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Double compute(){
+			if (depth <= 0) return evaluate(board);
+			double cached = table.get(board, depth);
+			if (!Double.isNaN(cached)) return cached;
+
+			int empty = BitBoard.countEmpty(board);
+			List<SpawnTask> spawns = new ArrayList<>();
+			for (int i=0; i<BitBoard.TILES; i++){
+				if (((board >>> (4*i)) & 0xF) != 0) continue;
+				spawns.add(new SpawnTask(board | (1L << (4*i)), depth, PROBABILITY_TWO / empty));
+				spawns.add(new SpawnTask(board | (2L << (4*i)), depth, (1 - PROBABILITY_TWO) / empty));
+			}
+			invokeAll(spawns);
+
+			double sum = 0;
+			for (SpawnTask spawn : spawns){
+				sum += spawn.odds * spawn.join();
+			}
+			if (!timedOut) table.put(board, depth, sum);
+			return sum;
+		}
+	}
+
+	// the player's reply to one spawn, searched sequentially
+	@SuppressWarnings("serial")
+	private class SpawnTask extends RecursiveTask<Double> {
+		private final long board;
+		private final int depth;
+		private final double odds;
+
+		SpawnTask(long board, int depth, double odds){
+			this.board = board;
+			this.depth = depth;
+			this.odds = odds;
+		}
+
+		@Override
+		protected Double compute(){
+			ExpectimaxPlayer worker = workers.get();
+			worker.beginSearch(deadline);
+			double value = worker.maxNode(board, depth, odds);
+			if (worker.isTimedOut()) timedOut = true;
+			return value;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelExpectimaxPlayerTest {
+
+	// positions from a few seeded greedy games, every fourth move
+	private static List<Long> positions() {
+		List<Long> positions = new ArrayList<>();
+		for (long seed = 1; seed <= 3; seed++) {
+			Board board = new Board(4, seed);
+			GreedyPlayer player = new GreedyPlayer();
+			for (int n = 0; board.gameOverCode() == 0 && n < 60; n++) {
+				if (n % 4 == 0) positions.add(board.packedState());
+				board.move(player.chooseMove(board), true);
+			}
+		}
+		return positions;
+	}
+
+	@Test
+	public void testSameMovesAsSequential() {
+		for (int depth = 1; depth <= 3; depth++) {
+			ConcurrentTranspositionTable table = new ConcurrentTranspositionTable(16);
+			ParallelExpectimaxPlayer parallel = new ParallelExpectimaxPlayer(depth, 0, 3, table);
+			try {
+				for (long board : positions()) {
+					// cached values of deeper searches would answer shallower ones differently
+					table.clear();
+					int expected = new ExpectimaxPlayer(depth, 0, new TranspositionTable(16)).chooseMove(board);
+					assertEquals("The parallel search should pick the sequential search's move at depth " + depth,
+							expected, parallel.chooseMove(board));
+				}
+			} finally {
+				parallel.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testStripedTableUnderContention() throws InterruptedException {
+		ConcurrentTranspositionTable table = new ConcurrentTranspositionTable(20);
+		int perThread = 500;
+		Thread[] threads = new Thread[4];
+		AtomicInteger wrong = new AtomicInteger();
+		AtomicInteger gets = new AtomicInteger();
+		for (int t = 0; t < threads.length; t++) {
+			int first = t * perThread;
+			threads[t] = new Thread(() -> {
+				for (int i = first; i < first + perThread; i++) {
+					long key = i * 0x9E3779B97F4A7C15L;
+					table.put(key, 1 + i % 5, i);
+					// read back keys of every thread while the others write
+					for (int j = 0; j < threads.length * perThread; j += 97) {
+						double value = table.get(j * 0x9E3779B97F4A7C15L, 1);
+						gets.incrementAndGet();
+						if (!Double.isNaN(value) && value != j) wrong.incrementAndGet();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals("No read should see another board's value", 0, wrong.get());
+		assertEquals("Every read should count as a hit or a miss", gets.get() + 0L,
+				table.getHits() + table.getMisses());
+		for (int i = 0; i < threads.length * perThread; i++) {
+			assertEquals("Every board should be stored", i, table.get(i * 0x9E3779B97F4A7C15L, 1), 0.0);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+/*
+ * File: Player.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ * 
+ * This interface represents an automated player. Given the current board it
+ * chooses which direction to shift the tiles next, so it can drive a game in
+ * place of the arrow keys.
+ */
+
+
+public interface Player {
+
+	/**
+	 * Chooses the next move for a board without changing it
+	 * 
+	 * @param board: Board; the current game
+	 * @return int; one of BitBoard.LEFT, RIGHT, UP or DOWN (see
+	 * Board.DIRECTIONS for the matching update() names), or -1 if no move
+	 * changes the board
+	 */
+	int chooseMove(Board board);
+}
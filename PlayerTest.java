@@ -0,0 +1,64 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+
+public class PlayerTest {
+
+	// a full 4x4 board with no two neighbours alike
+	private static Board deadBoard() {
+		Board board = new Board(4, 1L);
+		for (int i = 0; i < 16; i++) {
+			board.add(new Tile((i / 4 + i % 4) % 2 == 0 ? 2 : 4), i / 4, i % 4);
+		}
+		return board;
+	}
+
+	// plays a game to the end, checking every move the player picks changes the board
+	private static void playsOnlyLegalMoves(Player player, long seed) {
+		Board board = new Board(4, seed);
+		while (board.gameOverCode() == 0) {
+			int dir = player.chooseMove(board);
+			assertTrue("A board with moves left should get a move", dir >= 0);
+			assertTrue("The chosen move should change the board", MoveResult.changed(board.move(dir, true)));
+		}
+		if (board.gameOverCode() == -1) assertEquals(-1, player.chooseMove(board));
+	}
+
+	@Test
+	public void testGreedyPlaysLegalMoves() {
+		playsOnlyLegalMoves(new GreedyPlayer(), 3L);
+		assertEquals("A lost board should have no move", -1, new GreedyPlayer().chooseMove(deadBoard()));
+	}
+
+	@Test
+	public void testGreedyEmptiesMostCells() {
+		Board board = new Board(4, 6L);
+		for (int n = 0; n < 40 && board.gameOverCode() == 0; n++) {
+			int most = -1;
+			for (int dir = 0; dir < 4; dir++) {
+				most = Math.max(most, board.emptyAfterShift(dir));
+			}
+			int dir = new GreedyPlayer().chooseMove(board);
+			assertEquals("Greedy should leave the most empty cells", most, board.emptyAfterShift(dir));
+			board.move(dir, true);
+		}
+	}
+
+	@Test
+	public void testRandomPlaysLegalMoves() {
+		playsOnlyLegalMoves(new RandomPlayer(new SplittableRandom(5L)), 4L);
+		assertEquals("A lost board should have no move", -1, new RandomPlayer().chooseMove(deadBoard()));
+	}
+
+	@Test
+	public void testRandomIsReproducible() {
+		Board board = new Board(4, 2L);
+		RandomPlayer first = new RandomPlayer(new SplittableRandom(9L));
+		RandomPlayer second = new RandomPlayer(new SplittableRandom(9L));
+		for (int n = 0; n < 50; n++) {
+			assertEquals(first.chooseMove(board), second.chooseMove(board));
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * File: RandomPlayer.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ * 
+ * This class is an automated player that shifts in a random direction, only
+ * avoiding directions that would not change the board. It is the baseline
+ * other players are measured against.
+ */
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+
+public class RandomPlayer implements Player {
+	private final RandomGenerator random;
+
+	/*
+	 * Constructor for a player with an unpredictable sequence of moves
+	 */
+	public RandomPlayer(){
+		this(new SplittableRandom());
+	}
+
+	/*
+	 * Constructor for a player drawing its moves from the given generator, so
+	 * a seeded generator replays the same moves on the same board
+	 * @param random - generator owned by this player
+	 */
+	public RandomPlayer(RandomGenerator random){
+		this.random = random;
+	}
+
+	/**
+	 * Chooses a random direction that changes the board
+	 * 
+	 * @return int; one of BitBoard.LEFT, RIGHT, UP or DOWN, or -1 if no move
+	 * changes the board
+	 */
+	@Override
+	public int chooseMove(Board board){
+		int first = random.nextInt(4);
+		for (int k=0; k<4; k++){
+			int dir = (first + k) & 3;
+			if (board.emptyAfterShift(dir) >= 0) return dir;
+		}
+		return -1;
+	}
+}
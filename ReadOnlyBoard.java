@@ -0,0 +1,72 @@
+/*
+ * File: ReadOnlyBoard.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This interface reads the tiles of a board in place, without the Tile[][]
+ * copy of Board.getBoardState(). Both a live Board and a BoardSnapshot can be
+ * read through it, so renderers and evaluators work on either without
+ * allocating. The version changes whenever the tiles do, so a reader that
+ * remembers it can skip a board that has not changed since its last look.
+ */
+
+
+public interface ReadOnlyBoard {
+
+	/*
+	 * This interface is called once per cell by forEachTile()
+	 */
+	interface TileVisitor {
+
+		/**
+		 * Looks at one cell
+		 *
+		 * @param cell: int; the row major position, y*size + x
+		 * @param exponent: int; log2 of the tile's value, 0 for an empty cell
+		 */
+		void visit(int cell, int exponent);
+	}
+
+	/**
+	 * Obtains the dimensions of the board
+	 *
+	 * @return int; represents the number of tiles per row/column
+	 */
+	int getSize();
+
+	/**
+	 * Obtains the exponent of the tile at a position
+	 *
+	 * @return int; log2 of the tile's value, 0 if the position is empty
+	 */
+	int exponentAt(int y, int x);
+
+	/**
+	 * Obtains the value of the tile at a position
+	 *
+	 * @return int; value of the tile, 0 if the position is empty
+	 */
+	default int valAt(int y, int x){
+		return BitBoard.valueOf(exponentAt(y, x));
+	}
+
+	/**
+	 * Obtains a number that changes whenever the tiles change
+	 *
+	 * @return long; equal for two reads of the same board only if no tile
+	 * changed in between; a snapshot keeps the version of the board it was
+	 * taken from
+	 */
+	long getVersion();
+
+	/**
+	 * Visits every cell in row major order
+	 *
+	 * @param visitor: TileVisitor; called once per cell, empty cells included
+	 */
+	default void forEachTile(TileVisitor visitor){
+		int size = getSize();
+		for (int i=0; i<size*size; i++){
+			visitor.visit(i, exponentAt(i / size, i % size));
+		}
+	}
+}
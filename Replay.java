@@ -0,0 +1,194 @@
+/*
+ * File: Replay.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class is one recorded game: its board size, seed, the tiles it started
+ * with, every direction played and the tile that appeared after each move. It
+ * can be played back through Board without any randomness.
+ *
+ * A replay file starts with the 4 bytes "2048" and a version byte, followed by
+ * one record per game:
+ *
+ *   varint  length of the rest of the record in bytes
+ *   byte    board size
+ *   long    seed, 8 bytes big endian
+ *   varint  number of starting tiles k
+ *   varint  number of moves n
+ *   k       varints, the starting tiles
+ *   n/4     bytes rounded up, 2 bits per direction (BitBoard.LEFT, RIGHT, UP
+ *           or DOWN), lowest bits first
+ *   n       varints, the tile spawned after each move
+ *
+ * A tile is written as its row major cell plus 64 times (exponent - 1), so a
+ * 2 or 4 takes a single byte. Varints hold 7 bits per byte, lowest first, with
+ * the top bit set on every byte but the last.
+ */
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+
+public final class Replay {
+	static final byte[] MAGIC = {'2', '0', '4', '8'};
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = MAGIC.length + 1;
+
+	private final int size;
+	private final long seed;
+	private final int startTiles;
+	private final int moves;
+	private final byte[] directions; // 2 bits per move, lowest bits first
+	private final int[] tiles; // encoded starting tiles followed by one spawn per move
+
+	/*
+	 * Constructor for a decoded record, see decode()
+	 * @param size - size between 4 - 8
+	 * @param seed - seed the board was created with
+	 * @param startTiles - how many tiles were on the board before the first move
+	 * @param moves - number of moves played
+	 * @param directions - packed directions, owned by the replay from now on
+	 * @param tiles - encoded tiles, owned by the replay from now on
+	 */
+	Replay(int size, long seed, int startTiles, int moves, byte[] directions, int[] tiles){
+		this.size = size;
+		this.seed = seed;
+		this.startTiles = startTiles;
+		this.moves = moves;
+		this.directions = directions;
+		this.tiles = tiles;
+	}
+
+	/**
+	 * Obtains the dimensions of the recorded board
+	 *
+	 * @return int; represents the number of tiles per row/column
+	 */
+	public int getSize(){
+		return size;
+	}
+
+	/**
+	 * Obtains the seed the recorded board was created with
+	 *
+	 * @return long; the seed given to Board(size, seed)
+	 */
+	public long getSeed(){
+		return seed;
+	}
+
+	/**
+	 * Obtains the number of moves in the game
+	 *
+	 * @return int; moves that changed the board
+	 */
+	public int getMoveCount(){
+		return moves;
+	}
+
+	/**
+	 * Obtains the direction of a move
+	 *
+	 * @return int; one of BitBoard.LEFT, RIGHT, UP or DOWN
+	 */
+	public int getDirection(int move){
+		return (directions[move >> 2] >>> ((move & 3) << 1)) & 3;
+	}
+
+	/**
+	 * Obtains where the tile after a move appeared
+	 *
+	 * @return int; row major index (y*size + x)
+	 */
+	public int getSpawnCell(int move){
+		return cellOf(tiles[startTiles + move]);
+	}
+
+	/**
+	 * Obtains the value of the tile that appeared after a move
+	 *
+	 * @return int; 2 or 4
+	 */
+	public int getSpawnValue(int move){
+		return BitBoard.valueOf(exponentOf(tiles[startTiles + move]));
+	}
+
+	/**
+	 * Plays the whole game back on a new board
+	 *
+	 * @return Board; the board as it was after the last move
+	 * @throws IllegalStateException if a recorded move does not change the
+	 * board, which means the record is corrupt
+	 */
+	public Board replay(){
+		Board board = new Board(size, seed);
+		board.restore(size == BitBoard.SIZE ? new BoardSnapshot(0L) : new BoardSnapshot(size, new byte[size*size]));
+		for (int i=0; i<startTiles; i++){
+			board.spawnAt(cellOf(tiles[i]), exponentOf(tiles[i]));
+		}
+		for (int move=0; move<moves; move++){
+			if (!MoveResult.changed(board.move(getDirection(move), false))) {
+				throw new IllegalStateException("move " + move + " of the replay does not change the board");
+			}
+			int tile = tiles[startTiles + move];
+			board.spawnAt(cellOf(tile), exponentOf(tile));
+		}
+		return board;
+	}
+
+	/**
+	 * Reads one record, starting after its length
+	 *
+	 * @param in: ByteBuffer; positioned at the board size of a record
+	 * @return Replay; the decoded game
+	 * @throws IllegalArgumentException if the record is malformed
+	 */
+	public static Replay decode(ByteBuffer in){
+		try {
+			int size = in.get();
+			long seed = in.getLong();
+			int startTiles = readVarint(in);
+			int moves = readVarint(in);
+			if (size < BitBoard.SIZE || size > 8 || startTiles > size*size || moves < 0) {
+				throw new IllegalArgumentException("malformed replay record");
+			}
+			int[] tiles = new int[startTiles + moves];
+			for (int i=0; i<startTiles; i++){
+				tiles[i] = readVarint(in);
+			}
+			byte[] directions = new byte[(moves + 3) >> 2];
+			in.get(directions);
+			for (int i=startTiles; i<tiles.length; i++){
+				tiles[i] = readVarint(in);
+			}
+			return new Replay(size, seed, startTiles, moves, directions, tiles);
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("truncated replay record", e);
+		}
+	}
+
+	// encodes a tile for the record
+	static int encodeTile(int cell, int exponent){
+		return cell | (exponent - 1) << 6;
+	}
+
+	// the row major cell of an encoded tile
+	private static int cellOf(int tile){
+		return tile & 63;
+	}
+
+	// the exponent of an encoded tile
+	private static int exponentOf(int tile){
+		return (tile >>> 6) + 1;
+	}
+
+	// reads an unsigned varint
+	static int readVarint(ByteBuffer in){
+		int value = 0;
+		for (int shift=0; shift<32; shift+=7){
+			int b = in.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+		throw new IllegalArgumentException("varint longer than 5 bytes");
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * File: ReplayArchive.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class gives random access to the games of a replay file written by
+ * ReplayWriter.append(). Next to the replay file FILE sits its index
+ * FILE.idx, which holds the byte offset of every record as an 8 byte big
+ * endian long, so game n starts at the offset stored at byte 8n. Both files
+ * are memory mapped, so opening game n or walking through every game reads
+ * straight from the page cache without a system call per record. Files too
+ * big for one mapping are mapped in 1 GB segments.
+ *
+ * Usage: java ReplayArchive FILE [GAME]
+ * prints the number of games in the archive, or the moves of one game.
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+
+public class ReplayArchive implements Closeable {
+	public static final String INDEX_SUFFIX = ".idx";
+	private static final int ENTRY_BYTES = 8;
+	private static final long SEGMENT = 1L << 30;
+	// each data segment maps this much of the next one, so records that
+	// cross a segment boundary can still be read from the mapping
+	private static final long OVERLAP = 1L << 20;
+
+	private final FileChannel dataChannel;
+	private final MappedByteBuffer[] data;
+	private final MappedByteBuffer[] index;
+	private final long games;
+
+	// maps an archive whose index has been checked by repair()
+	private ReplayArchive(File file, long end) throws IOException {
+		dataChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		data = map(dataChannel, end, OVERLAP);
+		try (FileChannel indexChannel = FileChannel.open(indexOf(file).toPath(), StandardOpenOption.READ)) {
+			games = indexChannel.size() / ENTRY_BYTES;
+			index = map(indexChannel, games * ENTRY_BYTES, 0);
+		}
+	}
+
+	/**
+	 * Opens an archive, bringing its index up to date first if games were
+	 * written without one or the last write was cut short
+	 *
+	 * @param file: File; the replay file, its index is file + ".idx"
+	 * @return ReplayArchive; the open archive
+	 * @throws IOException if the file is not a replay file or cannot be read
+	 */
+	public static ReplayArchive open(File file) throws IOException {
+		return new ReplayArchive(file, repair(file));
+	}
+
+	/**
+	 * Obtains the number of games in the archive
+	 *
+	 * @return long; games that can be read with get()
+	 */
+	public long size(){
+		return games;
+	}
+
+	/**
+	 * Reads one game
+	 *
+	 * @param game: long; the number of the game, 0 is the first one written
+	 * @return Replay; the decoded game
+	 * @throws IOException if the record cannot be read
+	 */
+	public Replay get(long game) throws IOException {
+		if (game < 0 || game >= games) {
+			throw new IndexOutOfBoundsException("game " + game + " of an archive with " + games + " games");
+		}
+		long entry = game * ENTRY_BYTES;
+		return read(index[(int) (entry / SEGMENT)].getLong((int) (entry % SEGMENT)));
+	}
+
+	/**
+	 * Reads every game in the order they were written
+	 *
+	 * @param action: Consumer<Replay>; called with each game
+	 * @throws IOException if a record cannot be read
+	 */
+	public void forEach(Consumer<Replay> action) throws IOException {
+		for (long game=0; game<games; game++){
+			action.accept(get(game));
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		dataChannel.close(); // the mappings stay valid until they are collected
+	}
+
+	// decodes the record starting at a byte offset of the replay file
+	private Replay read(long offset) throws IOException {
+		MappedByteBuffer segment = data[(int) (offset / SEGMENT)];
+		int start = (int) (offset % SEGMENT);
+		int length = 0;
+		int pos = start;
+		for (int shift=0; ; shift+=7){
+			int b = segment.get(pos++);
+			length |= (b & 0x7F) << shift;
+			if (b >= 0) break;
+		}
+		if ((long) pos + length <= segment.limit()) {
+			ByteBuffer record = segment.duplicate();
+			record.position(pos).limit(pos + length);
+			return Replay.decode(record);
+		}
+		// a record longer than the overlap, read it the slow way
+		ByteBuffer record = ByteBuffer.allocate(length);
+		long at = offset + (pos - start);
+		while (record.hasRemaining()) {
+			if (dataChannel.read(record, at + record.position()) < 0) {
+				throw new IOException("replay record at " + offset + " is cut short");
+			}
+		}
+		record.flip();
+		return Replay.decode(record);
+	}
+
+	// maps size bytes of a file in segments, each also covering overlap
+	// bytes of the next
+	private static MappedByteBuffer[] map(FileChannel channel, long size, long overlap) throws IOException {
+		int count = (int) Math.max(1, (size + SEGMENT - 1) / SEGMENT);
+		MappedByteBuffer[] segments = new MappedByteBuffer[count];
+		for (int i=0; i<count; i++){
+			long start = i * SEGMENT;
+			long length = Math.min(SEGMENT + overlap, size - start);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(length, 0));
+		}
+		return segments;
+	}
+
+	// the index file of a replay file
+	static File indexOf(File file){
+		return new File(file.getPath() + INDEX_SUFFIX);
+	}
+
+	/*
+	 * Makes the index of a replay file match its complete records: entries
+	 * pointing at records that are missing or cut short are dropped, and
+	 * records written after the last entry are indexed. Returns the end of the
+	 * last complete record, where the next one should be written; 0 for a
+	 * missing or empty file.
+	 */
+	static long repair(File file) throws IOException {
+		File indexFile = indexOf(file);
+		if (file.length() == 0) {
+			Files.write(indexFile.toPath(), new byte[0]);
+			return 0;
+		}
+		try (FileChannel data = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				FileChannel index = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long length = data.size();
+			ByteBuffer header = ByteBuffer.allocate(Replay.HEADER_BYTES);
+			data.read(header, 0);
+			header.flip();
+			for (byte b : Replay.MAGIC){
+				if (!header.hasRemaining() || header.get() != b) throw new IOException(file + " is not a replay file");
+			}
+			if (!header.hasRemaining() || header.get() != Replay.VERSION) {
+				throw new IOException(file + " is not a version " + Replay.VERSION + " replay file");
+			}
+
+			// walk back to the last entry whose record is whole
+			long entries = index.size() / ENTRY_BYTES;
+			long end = Replay.HEADER_BYTES;
+			ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+			while (entries > 0) {
+				entry.clear();
+				index.read(entry, (entries - 1) * ENTRY_BYTES);
+				long recordEnd = entry.position() == ENTRY_BYTES ? recordEnd(data, entry.getLong(0), length) : -1;
+				if (recordEnd > 0) {
+					end = recordEnd;
+					break;
+				}
+				entries--;
+			}
+			index.truncate(entries * ENTRY_BYTES);
+
+			// then index whatever was written after it
+			ByteBuffer offsets = ByteBuffer.allocate(ENTRY_BYTES * 1024);
+			long at = entries * ENTRY_BYTES;
+			long recordEnd;
+			while (end < length && (recordEnd = recordEnd(data, end, length)) > 0) {
+				offsets.putLong(end);
+				end = recordEnd;
+				if (!offsets.hasRemaining()) at = flush(index, offsets, at);
+			}
+			flush(index, offsets, at);
+			return end;
+		}
+	}
+
+	// the end of the record starting at offset, or -1 if it is not whole
+	private static long recordEnd(FileChannel data, long offset, long length) throws IOException {
+		if (offset < Replay.HEADER_BYTES || offset >= length) return -1;
+		ByteBuffer varint = ByteBuffer.allocate(5);
+		data.read(varint, offset);
+		varint.flip();
+		try {
+			int recordLength = Replay.readVarint(varint);
+			long end = offset + varint.position() + recordLength;
+			return end <= length ? end : -1;
+		} catch (RuntimeException e) {
+			return -1; // the length itself is cut short or corrupt
+		}
+	}
+
+	// writes the buffered offsets at a position of the index, returning the
+	// position after them
+	private static long flush(FileChannel index, ByteBuffer offsets, long at) throws IOException {
+		offsets.flip();
+		while (offsets.hasRemaining()) {
+			at += index.write(offsets, at);
+		}
+		offsets.clear();
+		return at;
+	}
+
+	// running this prints the size of an archive or one of its games
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("usage: java ReplayArchive FILE [GAME]");
+			return;
+		}
+		try (ReplayArchive archive = ReplayArchive.open(new File(args[0]))) {
+			if (args.length == 1) {
+				System.out.println(archive.size() + " games");
+				return;
+			}
+			Replay replay = archive.get(Long.parseLong(args[1]));
+			StringBuilder moves = new StringBuilder();
+			for (int i=0; i<replay.getMoveCount(); i++){
+				moves.append(Board.DIRECTIONS[replay.getDirection(i)].charAt(0));
+			}
+			System.out.println(replay.getSize() + "x" + replay.getSize() + " seed " + replay.getSeed() + ", "
+					+ replay.getMoveCount() + " moves: " + moves);
+			replay.replay().printBoard();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * File: ReplayReader.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class reads the games of a replay stream written by ReplayWriter, one
+ * at a time, so streams far larger than memory can be walked through.
+ *
+ * Usage: java ReplayReader FILE
+ * replays every game of the file through Board and prints a summary.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+
+public class ReplayReader implements Closeable {
+	private final DataInputStream in;
+	private byte[] buffer = new byte[256]; // the current record, reused from game to game
+
+	/*
+	 * Constructor for a reader at the start of a replay stream
+	 * @param in - the stream, closed with the reader
+	 * @throws IOException if the stream does not start with a replay header
+	 */
+	public ReplayReader(InputStream in) throws IOException {
+		this.in = new DataInputStream(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+		byte[] magic = new byte[Replay.MAGIC.length];
+		this.in.readFully(magic);
+		int version = this.in.read();
+		if (!Arrays.equals(magic, Replay.MAGIC) || version != Replay.VERSION) {
+			throw new IOException("not a version " + Replay.VERSION + " replay stream");
+		}
+	}
+
+	/**
+	 * Reads the next game
+	 *
+	 * @return Replay; the game, or null at the end of the stream
+	 * @throws IOException if the stream cannot be read or ends inside a record
+	 */
+	public Replay next() throws IOException {
+		int first = in.read();
+		if (first < 0) return null;
+		int length = first & 0x7F;
+		for (int shift=7; first >= 0x80; shift+=7){
+			if (shift > 28) throw new IOException("malformed record length");
+			first = in.readUnsignedByte();
+			length |= (first & 0x7F) << shift;
+		}
+		if (length > buffer.length) buffer = new byte[Math.max(length, buffer.length * 2)];
+		in.readFully(buffer, 0, length);
+		try {
+			return Replay.decode(ByteBuffer.wrap(buffer, 0, length));
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	// running this replays every game of a file and prints how they ended
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("usage: java ReplayReader FILE");
+			return;
+		}
+		long start = System.nanoTime();
+		long games = 0, moves = 0, score = 0;
+		int bestTile = 0;
+		try (ReplayReader reader = new ReplayReader(new FileInputStream(args[0]))) {
+			Replay replay;
+			while ((replay = reader.next()) != null) {
+				Board board = replay.replay();
+				games++;
+				moves += replay.getMoveCount();
+				score += board.getScore();
+				bestTile = Math.max(bestTile, board.getMaxTile());
+			}
+		} catch (EOFException e) {
+			System.err.println("replay file ends inside a record; the games before it were read");
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d games, %d moves, mean score %.1f, best tile %d%n", games, moves,
+				games == 0 ? 0.0 : (double) score / games, bestTile);
+		System.out.printf("replayed in %.2f s (%.0f moves/s)%n", seconds, moves / seconds);
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * File: ReplayRecorder.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class records the game being played on one board so it can be saved
+ * with a ReplayWriter. It keeps the directions and spawns in arrays that grow
+ * as needed and are reused from game to game, so recording a move does not
+ * allocate. Undo and redo on the board are followed by stepping back and
+ * forward through the recorded moves. A recorder belongs to one game at a
+ * time and is not thread safe.
+ */
+
+import java.util.Arrays;
+
+
+public class ReplayRecorder {
+	private int size;
+	private long seed;
+	private boolean recording; // whether begin() was called since the last finish()
+	private int startTiles;
+	private int moves; // moves in the game as it stands
+	private int recorded; // moves stored, more than moves after an undo
+	private byte[] directions = new byte[64]; // one byte per move while recording
+	private int[] tiles = new int[80]; // encoded starting tiles, then one spawn per move
+	private byte[] record = new byte[128]; // encoded record built by finish()
+	private int recordLength;
+
+	/**
+	 * Starts recording a game from the current position of the board
+	 *
+	 * @param board: Board; the board the moves will be made on
+	 * @param seed: long; the seed the board was created with
+	 */
+	public void begin(Board board, long seed){
+		size = board.getSize();
+		this.seed = seed;
+		startTiles = 0;
+		moves = 0;
+		recorded = 0;
+		recording = true;
+		for (int i=0; i<size*size; i++){
+			int exponent = board.exponentAt(i / size, i % size);
+			if (exponent != 0) tiles = append(tiles, startTiles++, Replay.encodeTile(i, exponent));
+		}
+	}
+
+	/**
+	 * Adds a move to the game
+	 *
+	 * @param direction: int; one of BitBoard.LEFT, RIGHT, UP or DOWN
+	 * @param result: long; what Board.move() returned, moves that did not
+	 * change the board or did not spawn a tile are ignored
+	 */
+	public void record(int direction, long result){
+		if (!recording || !MoveResult.spawned(result)) return;
+		if (moves == directions.length) {
+			directions = Arrays.copyOf(directions, moves * 2);
+		}
+		directions[moves] = (byte) direction;
+		int value = MoveResult.spawnValue(result);
+		tiles = append(tiles, startTiles + moves, Replay.encodeTile(MoveResult.spawnCell(result), BitBoard.exponentOf(value)));
+		moves++;
+		recorded = moves; // a new move replaces whatever could be redone
+	}
+
+	/**
+	 * Steps back one move after Board.undo() succeeded
+	 */
+	public void undo(){
+		if (moves > 0) moves--;
+	}
+
+	/**
+	 * Steps forward one move after Board.redo() succeeded
+	 */
+	public void redo(){
+		if (moves < recorded) moves++;
+	}
+
+	/**
+	 * Determines whether a game is being recorded
+	 *
+	 * @return boolean; true between begin() and finish()
+	 */
+	public boolean isRecording(){
+		return recording;
+	}
+
+	/**
+	 * Obtains the number of moves recorded so far
+	 *
+	 * @return int; moves in the game as it stands
+	 */
+	public int getMoveCount(){
+		return moves;
+	}
+
+	/**
+	 * Ends the game and encodes it; the record stays available through
+	 * ReplayWriter.write() until begin() is called again
+	 */
+	public void finish(){
+		recording = false;
+		// the body goes after room for the longest length varint
+		int pos = 5;
+		pos = ensure(pos, 1 + 8);
+		record[pos++] = (byte) size;
+		for (int shift=56; shift>=0; shift-=8){
+			record[pos++] = (byte) (seed >>> shift);
+		}
+		pos = writeVarint(pos, startTiles);
+		pos = writeVarint(pos, moves);
+		for (int i=0; i<startTiles; i++){
+			pos = writeVarint(pos, tiles[i]);
+		}
+		int packedBytes = (moves + 3) >> 2;
+		pos = ensure(pos, packedBytes);
+		for (int i=0; i<packedBytes; i++){
+			int b = 0;
+			for (int k=0; k<4 && 4*i + k < moves; k++){
+				b |= directions[4*i + k] << (2*k);
+			}
+			record[pos++] = (byte) b;
+		}
+		for (int i=0; i<moves; i++){
+			pos = writeVarint(pos, tiles[startTiles + i]);
+		}
+
+		// now the length goes just in front of the body
+		int bodyLength = pos - 5;
+		int lengthBytes = varintLength(bodyLength);
+		int start = 5 - lengthBytes;
+		writeVarint(start, bodyLength);
+		System.arraycopy(record, start, record, 0, lengthBytes + bodyLength);
+		recordLength = lengthBytes + bodyLength;
+	}
+
+	// the encoded record built by finish(), valid for recordLength() bytes
+	byte[] record(){
+		return record;
+	}
+
+	// the number of bytes of record() in use
+	int recordLength(){
+		return recordLength;
+	}
+
+	// stores value at index, growing the array if needed
+	private static int[] append(int[] array, int index, int value){
+		if (index == array.length) array = Arrays.copyOf(array, index * 2);
+		array[index] = value;
+		return array;
+	}
+
+	// makes room for more bytes of the record after pos, returning pos
+	private int ensure(int pos, int more){
+		if (pos + more > record.length) {
+			record = Arrays.copyOf(record, Math.max(record.length * 2, pos + more));
+		}
+		return pos;
+	}
+
+	// writes an unsigned varint at pos, returning the position after it
+	private int writeVarint(int pos, int value){
+		ensure(pos, 5);
+		while ((value & ~0x7F) != 0) {
+			record[pos++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		record[pos++] = (byte) value;
+		return pos;
+	}
+
+	// the number of bytes writeVarint() uses for a value
+	private static int varintLength(int value){
+		int length = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+}
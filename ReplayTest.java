@@ -0,0 +1,119 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+public class ReplayTest {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BoardSnapshot[] finals = new BoardSnapshot[3];
+		int[] moves = new int[3];
+		try (ReplayWriter writer = new ReplayWriter(bytes)) {
+			ReplayRecorder recorder = new ReplayRecorder();
+			for (int game = 0; game < 3; game++) {
+				Board board = new Board(4 + 2*game, game);
+				board.setUndoLevels(5);
+				recorder.begin(board, game);
+				GreedyPlayer player = new GreedyPlayer();
+				for (int turn = 1; board.gameOverCode() == 0; turn++) {
+					int dir = player.chooseMove(board);
+					recorder.record(dir, board.move(dir, true));
+					// take back every tenth move to check the recorder follows undo
+					if (turn % 10 == 0 && board.undo()) recorder.undo();
+				}
+				recorder.finish();
+				writer.write(recorder);
+				finals[game] = board.snapshot();
+				moves[game] = recorder.getMoveCount();
+			}
+		}
+
+		try (ReplayReader reader = new ReplayReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+			for (int game = 0; game < 3; game++) {
+				Replay replay = reader.next();
+				assertEquals(4 + 2*game, replay.getSize());
+				assertEquals(game, replay.getSeed());
+				assertEquals(moves[game], replay.getMoveCount());
+				assertEquals("Replay should end on the recorded board", finals[game], replay.replay().snapshot());
+			}
+			assertNull("Stream should hold three games", reader.next());
+		}
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ReplayRecorder recorder = new ReplayRecorder();
+		Board board = new Board(4, 1L);
+		recorder.begin(board, 1L);
+		GreedyPlayer player = new GreedyPlayer();
+		while (board.gameOverCode() == 0) {
+			int dir = player.chooseMove(board);
+			recorder.record(dir, board.move(dir, true));
+		}
+		recorder.finish();
+		try (ReplayWriter writer = new ReplayWriter(bytes)) {
+			writer.write(recorder);
+		}
+		// a quarter byte per direction and a byte per spawn, plus a small header
+		int moves = recorder.getMoveCount();
+		assertTrue("Record should be about 1.25 bytes per move", bytes.size() < moves * 5 / 4 + 32);
+	}
+
+	@Test
+	public void testArchive() throws IOException {
+		File file = File.createTempFile("replays", ".bin");
+		file.delete();
+		try {
+			ReplayRecorder recorder = new ReplayRecorder();
+			int[] moves = new int[20];
+			for (int game = 0; game < moves.length; game++) {
+				// reopen now and then, as the GUI does after every game
+				try (ReplayWriter writer = ReplayWriter.append(file)) {
+					Board board = new Board(4 + game % 3, game);
+					recorder.begin(board, game);
+					RandomPlayer player = new RandomPlayer(new SplittableRandom(game));
+					while (board.gameOverCode() == 0) {
+						int dir = player.chooseMove(board);
+						recorder.record(dir, board.move(dir, true));
+					}
+					recorder.finish();
+					writer.write(recorder);
+					moves[game] = recorder.getMoveCount();
+				}
+			}
+
+			// a record cut short by a crash is ignored and then overwritten
+			try (FileOutputStream torn = new FileOutputStream(file, true)) {
+				torn.write(new byte[] {(byte) 0x90, 3, 4});
+			}
+			try (ReplayArchive archive = ReplayArchive.open(file)) {
+				assertEquals(20, archive.size());
+				for (int game = 19; game >= 0; game -= 3) {
+					Replay replay = archive.get(game);
+					assertEquals(game, replay.getSeed());
+					assertEquals(4 + game % 3, replay.getSize());
+					assertEquals(moves[game], replay.getMoveCount());
+				}
+			}
+			try (ReplayWriter writer = ReplayWriter.append(file)) {
+				writer.write(recorder);
+			}
+			try (ReplayArchive archive = ReplayArchive.open(file)) {
+				assertEquals(21, archive.size());
+				assertEquals(moves[19], archive.get(20).getMoveCount());
+			}
+		} finally {
+			file.delete();
+			ReplayArchive.indexOf(file).delete();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * File: ReplayWriter.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class appends recorded games to a replay stream in the format
+ * described in Replay. Games recorded on different threads can be written to
+ * the same writer; each record is written whole. A writer opened on a file
+ * also keeps the file's ReplayArchive index up to date.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+
+public class ReplayWriter implements Closeable {
+	private final OutputStream out;
+	private final DataOutputStream index; // offset of each record, null for a plain stream
+	private long position; // bytes of the stream before the next record
+
+	/*
+	 * Constructor for a writer starting a new replay stream
+	 * @param out - where the stream is written, closed with the writer
+	 */
+	public ReplayWriter(OutputStream out) throws IOException {
+		this(out, null, 0);
+	}
+
+	// wraps a stream that already holds position bytes, writing the file
+	// header only for a new stream
+	private ReplayWriter(OutputStream out, OutputStream index, long position) throws IOException {
+		this.out = out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out);
+		this.index = index == null ? null : new DataOutputStream(new BufferedOutputStream(index));
+		this.position = position;
+		if (position == 0) {
+			this.out.write(Replay.MAGIC);
+			this.out.write(Replay.VERSION);
+			this.position = Replay.HEADER_BYTES;
+		}
+	}
+
+	/**
+	 * Opens a replay file for appending, creating it and its index if needed;
+	 * a record cut short by an earlier crash is dropped first
+	 *
+	 * @param file: File; the replay file
+	 * @return ReplayWriter; a writer adding games after any already there
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static ReplayWriter append(File file) throws IOException {
+		long end = ReplayArchive.repair(file);
+		if (end < file.length()) {
+			try (RandomAccessFile cut = new RandomAccessFile(file, "rw")) {
+				cut.setLength(end);
+			}
+		}
+		return new ReplayWriter(new FileOutputStream(file, true),
+				new FileOutputStream(ReplayArchive.indexOf(file), true), end);
+	}
+
+	/**
+	 * Writes the game a recorder finished
+	 *
+	 * @pre recorder.finish() was called after the game's last move
+	 * @throws IOException if the stream cannot be written
+	 */
+	public synchronized void write(ReplayRecorder recorder) throws IOException {
+		out.write(recorder.record(), 0, recorder.recordLength());
+		if (index != null) index.writeLong(position);
+		position += recorder.recordLength();
+	}
+
+	/**
+	 * Pushes buffered games to the underlying stream
+	 *
+	 * @throws IOException if the stream cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		out.flush();
+		// the games go out before their offsets, so the index never points
+		// past the end of the file
+		if (index != null) index.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		flush();
+		out.close();
+		if (index != null) index.close();
+	}
+}
@@ -0,0 +1,23 @@
+/*
+ * File: RowHeuristic.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This interface is one measure of how good a line of a 4x4 board is, such
+ * as how many of its cells are empty. It only ever sees one row or column at
+ * a time, so a HeuristicEvaluator can score every possible line once, when it
+ * is made, and score a whole board with a table lookup per row and column.
+ * See StandardHeuristic for the usual ones.
+ */
+
+
+public interface RowHeuristic {
+
+	/**
+	 * Scores one line of the board
+	 *
+	 * @param line: int[]; the four exponents of a row from left to right, or
+	 * of a column from top to bottom, 0 for an empty cell; not to be kept
+	 * @return double; the score, higher meaning better once weighted
+	 */
+	double score(int[] line);
+}
@@ -0,0 +1,154 @@
+/*
+ * File: ScoreSkipList.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class keeps leaderboard entries sorted from the highest score down.
+ * It is a skip list whose links also count how many entries they jump over,
+ * so finding an entry's rank, the entry at a rank and adding an entry all
+ * take O(log n) expected time. Equal scores are ranked in the order they
+ * were added. It is not thread safe.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class ScoreSkipList {
+	private static final int MAX_LEVEL = 32;
+
+	private final Node head = new Node(null, MAX_LEVEL);
+	private int level = 1; // levels in use
+	private int size;
+	private long random = 0x2545F4914F6CDD1DL; // xorshift state for node levels
+
+	/**
+	 * Adds an entry
+	 *
+	 * @param entry: LeaderboardEntry; the entry to rank
+	 * @return int; its rank, 1 for the highest score
+	 */
+	public int add(LeaderboardEntry entry){
+		Node[] update = new Node[MAX_LEVEL];
+		int[] rank = new int[MAX_LEVEL];
+		int score = entry.getScore();
+		// every equal score already here was added earlier and stays ahead
+		Node x = head;
+		for (int i=level-1; i>=0; i--){
+			rank[i] = i == level-1 ? 0 : rank[i+1];
+			while (x.next[i] != null && x.next[i].entry.getScore() >= score) {
+				rank[i] += x.span[i];
+				x = x.next[i];
+			}
+			update[i] = x;
+		}
+
+		int nodeLevel = randomLevel();
+		if (nodeLevel > level) {
+			for (int i=level; i<nodeLevel; i++){
+				rank[i] = 0;
+				update[i] = head;
+				head.span[i] = size;
+			}
+			level = nodeLevel;
+		}
+		Node node = new Node(entry, nodeLevel);
+		for (int i=0; i<nodeLevel; i++){
+			node.next[i] = update[i].next[i];
+			update[i].next[i] = node;
+			// the new node splits the span of the link it was put into
+			node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+			update[i].span[i] = rank[0] - rank[i] + 1;
+		}
+		for (int i=nodeLevel; i<level; i++){
+			update[i].span[i]++;
+		}
+		size++;
+		return rank[0] + 1;
+	}
+
+	/**
+	 * Counts the entries scoring at least a given score
+	 *
+	 * @return int; entries with a score >= score, so a new entry with that
+	 * score would be ranked one after them
+	 */
+	public int countAtLeast(int score){
+		Node x = head;
+		int count = 0;
+		for (int i=level-1; i>=0; i--){
+			while (x.next[i] != null && x.next[i].entry.getScore() >= score) {
+				count += x.span[i];
+				x = x.next[i];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Obtains the entry at a rank
+	 *
+	 * @param rank: int; between 1 and size()
+	 * @return LeaderboardEntry; the entry with that rank
+	 */
+	public LeaderboardEntry get(int rank){
+		if (rank < 1 || rank > size) throw new IndexOutOfBoundsException("rank " + rank + " of " + size);
+		Node x = head;
+		int traversed = 0;
+		for (int i=level-1; i>=0; i--){
+			while (x.next[i] != null && traversed + x.span[i] <= rank) {
+				traversed += x.span[i];
+				x = x.next[i];
+			}
+			if (traversed == rank) return x.entry;
+		}
+		throw new IllegalStateException("skip list spans are out of date");
+	}
+
+	/**
+	 * Obtains the highest entries
+	 *
+	 * @param count: int; the most entries to return
+	 * @return List<LeaderboardEntry>; up to count entries, highest score first
+	 */
+	public List<LeaderboardEntry> top(int count){
+		List<LeaderboardEntry> top = new ArrayList<>(Math.min(count, size));
+		for (Node x = head.next[0]; x != null && top.size() < count; x = x.next[0]){
+			top.add(x.entry);
+		}
+		return top;
+	}
+
+	/**
+	 * Obtains the number of entries
+	 *
+	 * @return int; entries added so far
+	 */
+	public int size(){
+		return size;
+	}
+
+	// picks a level with probability 1/4 of going one higher
+	private int randomLevel(){
+		random ^= random << 13;
+		random ^= random >>> 7;
+		random ^= random << 17;
+		int nodeLevel = 1 + Long.numberOfTrailingZeros(random | 1L << 62) / 2;
+		return Math.min(nodeLevel, MAX_LEVEL);
+	}
+
+	/*
+	 * This class is one entry of the list with its links; span[i] is the
+	 * number of entries the link next[i] moves forward
+	 */
+	private static final class Node {
+		final LeaderboardEntry entry;
+		final Node[] next;
+		final int[] span;
+
+		Node(LeaderboardEntry entry, int level){
+			this.entry = entry;
+			this.next = new Node[level];
+			this.span = new int[level];
+		}
+	}
+}
@@ -0,0 +1,283 @@
+/*
+ * File: SimulationRunner.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class plays games without the GUI. It runs a number of games of a
+ * given board size with an automated Player, spread over a pool of threads,
+ * and streams one line per finished game (score, largest tile, number of
+ * moves and how long it took) as CSV or JSON Lines.
+ *
+ * Usage: java SimulationRunner [--games M] [--size S] [--threads T]
+ *            [--policy random|greedy|expectimax|montecarlo|ntuple] [--depth D]
+ *            [--playouts N] [--network FILE] [--format csv|jsonl] [--out FILE]
+ *            [--seed SEED] [--replays FILE]
+ *
+ * With a seed every game is reproducible: game g uses seed + g for its board
+ * and for a random player, whichever thread happens to play it. With --replays
+ * every game is also appended to a replay file with an index for random
+ * access (see Replay and ReplayArchive). Run with -Dmetrics=true
+ * -Dmetrics.dump=SECONDS to see where the time goes (see Metrics).
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+
+public class SimulationRunner {
+	private final int games;
+	private final int size;
+	private final int threads;
+	private final String policy;
+	private final LongFunction<Player> players; // one player per game, given the game's seed
+	private final long seed;
+	private final boolean json;
+	private final Writer out;
+	private ReplayWriter replays; // where every game is recorded, null to not record
+	// replays of games that finished before an earlier game, so the archive
+	// holds the games of a run in order whatever thread played them
+	private final Map<Integer, ReplayRecorder> pendingReplays = new HashMap<>();
+	private int nextReplay; // the game whose replay is written next
+
+	/*
+	 * Constructor for a runner; nothing is played until run() is called
+	 * @param games - number of games to play
+	 * @param size - board size between 4 - 8
+	 * @param threads - number of games played at the same time
+	 * @param policy - name written next to each result
+	 * @param players - creates the player for each game from the game's seed
+	 * @param seed - seed of the first game, game g uses seed + g
+	 * @param json - true for JSON Lines, false for CSV
+	 * @param out - where results are written, one line per game
+	 */
+	public SimulationRunner(int games, int size, int threads, String policy, LongFunction<Player> players,
+			long seed, boolean json, Writer out){
+		this.games = games;
+		this.size = size;
+		this.threads = threads;
+		this.policy = policy;
+		this.players = players;
+		this.seed = seed;
+		this.json = json;
+		this.out = out;
+	}
+
+	/**
+	 * Records every game played from now on; the games of the next run() are
+	 * appended in game order after the ones already in the archive, leaving
+	 * out any game that failed
+	 * 
+	 * @param replays: ReplayWriter; where the games are appended, null to
+	 * stop recording
+	 */
+	public void setReplays(ReplayWriter replays){
+		this.replays = replays;
+	}
+
+	/**
+	 * Plays every game and writes the results as they finish
+	 *
+	 * @throws IOException if the results cannot be written
+	 * @throws InterruptedException if interrupted while waiting for games
+	 */
+	public void run() throws IOException, InterruptedException {
+		if (!json) {
+			out.write("game,size,policy,result,score,max_tile,moves,duration_ms" + System.lineSeparator());
+		}
+		nextReplay = 0;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (int g=0; g<games; g++){
+			int game = g;
+			pool.execute(() -> {
+				try {
+					write(playGame(game));
+				} catch (RuntimeException e) {
+					// one broken game must not hold back the replays of the rest
+					System.err.println("Game " + game + " failed: " + e);
+					e.printStackTrace();
+					if (replays != null) writeReplay(game, null);
+				}
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		out.flush();
+		if (replays != null) replays.flush();
+	}
+
+	/**
+	 * Plays one game to the end with a fresh player
+	 *
+	 * @param game: int; number identifying the game in the output
+	 * @return GameResult; how the game went
+	 */
+	public GameResult playGame(int game){
+		long gameSeed = seed + game;
+		Player player = players.apply(gameSeed);
+		Board board = new Board(size, gameSeed);
+		ReplayRecorder recorder = null;
+		if (replays != null) {
+			recorder = new ReplayRecorder();
+			recorder.begin(board, gameSeed);
+		}
+		long start = System.nanoTime();
+		int moves = 0;
+		while (board.gameOverCode() == 0) {
+			long decided = Metrics.start();
+			int dir = player.chooseMove(board);
+			Metrics.stop(Metrics.DECISION, decided);
+			if (dir < 0) break;
+			long result = board.move(dir, true);
+			if (!MoveResult.changed(result)) break;
+			if (recorder != null) recorder.record(dir, result);
+			moves++;
+		}
+		long duration = System.nanoTime() - start;
+		if (recorder != null) {
+			recorder.finish();
+			writeReplay(game, recorder);
+		}
+		return new GameResult(game, board.gameOverCode(), board.getScore(), board.getMaxTile(), moves, duration);
+	}
+
+	// writes a result line; games finish on different threads so writes are serialized
+	private synchronized void write(GameResult result){
+		String line;
+		if (json) {
+			line = "{\"game\":" + result.game + ",\"size\":" + size + ",\"policy\":\"" + policy
+					+ "\",\"result\":\"" + result.outcome() + "\",\"score\":" + result.score
+					+ ",\"max_tile\":" + result.maxTile + ",\"moves\":" + result.moves
+					+ ",\"duration_ms\":" + result.durationNanos / 1_000_000 + "}";
+		} else {
+			line = result.game + "," + size + "," + policy + "," + result.outcome() + "," + result.score
+					+ "," + result.maxTile + "," + result.moves + "," + result.durationNanos / 1_000_000;
+		}
+		try {
+			out.write(line + System.lineSeparator());
+			out.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// writes a game's replay once every earlier game has been written; a
+	// null recorder marks a game that failed, which only moves the turn on
+	private synchronized void writeReplay(int game, ReplayRecorder recorder){
+		pendingReplays.put(game, recorder);
+		try {
+			while (pendingReplays.containsKey(nextReplay)) {
+				recorder = pendingReplays.remove(nextReplay);
+				if (recorder != null) replays.write(recorder);
+				nextReplay++;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// creates the player factory for a policy name
+	private static LongFunction<Player> policy(String name, int size, int depth, int playouts, String network)
+			throws IOException {
+		switch (name){
+			case "random":
+				// the player's moves must not follow the board's own random stream
+				return gameSeed -> new RandomPlayer(new SplittableRandom(~gameSeed));
+			case "greedy":
+				return gameSeed -> new GreedyPlayer();
+			case "expectimax":
+				if (size != BitBoard.SIZE) {
+					throw new IllegalArgumentException("expectimax only plays 4x4 boards");
+				}
+				// each pool thread reuses one table, about 17 MB, instead of
+				// allocating a new one for every game
+				ThreadLocal<TranspositionTable> tables = ThreadLocal.withInitial(() -> new TranspositionTable(20));
+				return gameSeed -> {
+					TranspositionTable table = tables.get();
+					table.clear(); // a game starts from nothing, as with a table of its own
+					return new ExpectimaxPlayer(depth, 0, table);
+				};
+			case "montecarlo":
+				return gameSeed -> new MonteCarloPlayer(playouts, 1);
+			case "ntuple":
+				if (size != BitBoard.SIZE) {
+					throw new IllegalArgumentException("ntuple only plays 4x4 boards");
+				}
+				// one network, loaded once, is shared by every game
+				NTupleNetwork trained = NTupleNetwork.load(new File(network));
+				return gameSeed -> new NTuplePlayer(trained);
+			default:
+				throw new IllegalArgumentException("unknown policy: " + name);
+		}
+	}
+
+	// running this plays the games described by the command line options
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> options = new HashMap<>();
+		for (int i=0; i+1<args.length; i+=2){
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("expected an option but got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i+1]);
+		}
+
+		int games = Integer.parseInt(options.getOrDefault("games", "100"));
+		int size = Integer.parseInt(options.getOrDefault("size", "4"));
+		int threads = Integer.parseInt(options.getOrDefault("threads",
+				Integer.toString(Runtime.getRuntime().availableProcessors())));
+		String policy = options.getOrDefault("policy", "greedy");
+		int depth = Integer.parseInt(options.getOrDefault("depth", "2"));
+		int playouts = Integer.parseInt(options.getOrDefault("playouts", "50"));
+		String network = options.getOrDefault("network", "ntuple.bin");
+		boolean json = options.getOrDefault("format", "csv").equals("jsonl");
+		String file = options.getOrDefault("out", "-");
+		long seed = options.containsKey("seed") ? Long.parseLong(options.get("seed")) : System.nanoTime();
+		if (size > 8 || size < 4) {
+			throw new IllegalArgumentException("size must be between 4 and 8");
+		}
+
+		Writer out = new BufferedWriter(file.equals("-") ? new OutputStreamWriter(System.out) : new FileWriter(file));
+		SimulationRunner runner = new SimulationRunner(games, size, threads, policy, policy(policy, size, depth, playouts, network),
+				seed, json, out);
+		ReplayWriter replays = options.containsKey("replays") ? ReplayWriter.append(new File(options.get("replays"))) : null;
+		runner.setReplays(replays);
+		runner.run();
+		if (replays != null) replays.close();
+		if (!file.equals("-")) out.close();
+	}
+
+	/*
+	 * This class holds the outcome of one simulated game
+	 */
+	public static class GameResult {
+		public final int game;
+		public final int gameOverCode; // as returned by Board.gameOverCode()
+		public final int score;
+		public final int maxTile;
+		public final int moves;
+		public final long durationNanos;
+
+		public GameResult(int game, int gameOverCode, int score, int maxTile, int moves, long durationNanos){
+			this.game = game;
+			this.gameOverCode = gameOverCode;
+			this.score = score;
+			this.maxTile = maxTile;
+			this.moves = moves;
+			this.durationNanos = durationNanos;
+		}
+
+		// "won", "lost" or "stopped" if the player gave up with moves left
+		public String outcome(){
+			return gameOverCode == 1 ? "won" : gameOverCode == -1 ? "lost" : "stopped";
+		}
+	}
+}
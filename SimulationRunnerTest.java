@@ -0,0 +1,96 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongFunction;
+
+public class SimulationRunnerTest {
+	private static final long SEED = 77L;
+
+	// plays a run and returns its CSV lines without the header or the timing
+	// column, sorted by game
+	private static List<String> run(int games, int threads, LongFunction<Player> players, File replays)
+			throws IOException, InterruptedException {
+		StringWriter out = new StringWriter();
+		SimulationRunner runner = new SimulationRunner(games, 4, threads, "test", players, SEED, false, out);
+		ReplayWriter writer = replays == null ? null : ReplayWriter.append(replays);
+		runner.setReplays(writer);
+		runner.run();
+		if (writer != null) writer.close();
+
+		List<String> lines = new ArrayList<>();
+		String[] written = out.toString().split(System.lineSeparator());
+		for (int i = 1; i < written.length; i++) {
+			lines.add(written[i].substring(0, written[i].lastIndexOf(',')));
+		}
+		Collections.sort(lines, (a, b) -> Integer.parseInt(a.split(",")[0]) - Integer.parseInt(b.split(",")[0]));
+		return lines;
+	}
+
+	@Test
+	public void testSameResultsOnAnyNumberOfThreads() throws Exception {
+		LongFunction<Player> random = gameSeed -> new RandomPlayer(new SplittableRandom(~gameSeed));
+		List<String> single = run(12, 1, random, null);
+		List<String> parallel = run(12, 4, random, null);
+		assertEquals(12, single.size());
+		assertEquals("A seeded run should not depend on the thread count", single, parallel);
+		assertEquals(single, run(12, 3, random, null));
+
+		assertEquals(run(6, 1, gameSeed -> new GreedyPlayer(), null), run(6, 3, gameSeed -> new GreedyPlayer(), null));
+	}
+
+	@Test
+	public void testReplaysInGameOrder() throws Exception {
+		File file = File.createTempFile("runner", ".replays");
+		File index = new File(file.getPath() + ReplayArchive.INDEX_SUFFIX);
+		file.delete();
+		try {
+			List<String> results = run(10, 4, gameSeed -> new RandomPlayer(new SplittableRandom(~gameSeed)), file);
+			try (ReplayArchive archive = ReplayArchive.open(file)) {
+				assertEquals(10, archive.size());
+				for (int g = 0; g < 10; g++) {
+					Replay replay = archive.get(g);
+					assertEquals("Replays should be written in game order", SEED + g, replay.getSeed());
+					String[] result = results.get(g).split(",");
+					assertEquals("A replay should end on the game's score", Integer.parseInt(result[4]),
+							replay.replay().getScore());
+				}
+			}
+		} finally {
+			file.delete();
+			index.delete();
+		}
+	}
+
+	@Test
+	public void testFailedGameDoesNotHoldBackReplays() throws Exception {
+		File file = File.createTempFile("runner", ".replays");
+		File index = new File(file.getPath() + ReplayArchive.INDEX_SUFFIX);
+		file.delete();
+		try {
+			LongFunction<Player> players = gameSeed -> {
+				if (gameSeed == SEED + 2) throw new IllegalStateException("broken player");
+				return new GreedyPlayer();
+			};
+			List<String> results = run(6, 2, players, file);
+			assertEquals("Every other game should still report", 5, results.size());
+			try (ReplayArchive archive = ReplayArchive.open(file)) {
+				assertEquals("Games after the failed one should still be recorded", 5, archive.size());
+				long[] expected = {SEED, SEED + 1, SEED + 3, SEED + 4, SEED + 5};
+				for (int i = 0; i < expected.length; i++) {
+					assertEquals(expected[i], archive.get(i).getSeed());
+				}
+			}
+		} finally {
+			file.delete();
+			index.delete();
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * File: SoundEngine.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class plays the game's sound effects. The .wav files asked for are
+ * decoded once when the engine is made and loaded into a few Clips that are
+ * kept open until close(), so playing a sound only rewinds and starts a clip
+ * that is ready.
+ * Sounds are started on a thread of the engine's own, so the caller (the
+ * Swing event thread) never waits on the audio system; when keys repeat
+ * faster than sounds can be started, the extra requests are dropped rather
+ * than queued, so a sound never lags behind the key that caused it.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+
+public class SoundEngine implements AutoCloseable {
+	private static final int CLIPS_PER_SOUND = 3; // one sound can overlap itself this many times
+	private static final int PENDING = 4; // sounds waiting to be started before new ones are dropped
+
+	private final Map<String, Sound> sounds = new HashMap<>(); // by name, null if it could not be loaded
+	private final BlockingQueue<Sound> pending = new ArrayBlockingQueue<>(PENDING);
+	private final Thread player;
+
+	/*
+	 * Constructor that loads the named sounds of a folder and starts the
+	 * thread that plays them; sounds that cannot be loaded are reported and
+	 * play silently
+	 * @param folder - the folder holding the .wav files
+	 * @param names - the sounds to load, file names without ".wav" in any case
+	 */
+	public SoundEngine(File folder, String[] names){
+		File[] files = folder.listFiles((dir, name) -> name.endsWith(".wav"));
+		if (files == null) {
+			System.err.println("Sound folder not found: " + folder);
+			files = new File[0];
+		}
+		for (String name : names){
+			File found = null;
+			for (File file : files){
+				if (file.getName().equalsIgnoreCase(name + ".wav")) found = file;
+			}
+			if (found == null) System.err.println("Sound file not found: " + name + ".wav");
+			sounds.put(name, found == null ? null : load(found));
+		}
+		player = new Thread(this::playLoop, "sound");
+		player.setDaemon(true);
+		player.start();
+	}
+
+	/**
+	 * Plays a sound without waiting for it to start
+	 *
+	 * @param name: String; one of the names given to the constructor, e.g. "error"
+	 */
+	public void play(String name){
+		Sound sound = sounds.get(name);
+		if (sound != null) {
+			pending.offer(sound); // dropped if the player is this far behind
+		} else if (!sounds.containsKey(name)) {
+			System.err.println("Sound not loaded: " + name);
+		}
+	}
+
+	/**
+	 * Obtains whether a sound was loaded
+	 *
+	 * @return boolean; true if play(name) will be heard
+	 */
+	public boolean has(String name){
+		return sounds.get(name) != null;
+	}
+
+	/**
+	 * Stops the player thread and closes every clip; safe to call more than once
+	 */
+	@Override
+	public void close(){
+		player.interrupt();
+		for (Sound sound : sounds.values()){
+			if (sound == null) continue;
+			for (Clip clip : sound.clips){
+				clip.close();
+			}
+		}
+	}
+
+	// starts sounds as they are asked for
+	private void playLoop(){
+		try {
+			while (true) {
+				pending.take().play();
+			}
+		} catch (InterruptedException e) {
+			// closed
+		}
+	}
+
+	// decodes a file once and opens its clips on the decoded samples
+	private static Sound load(File file){
+		try (AudioInputStream in = AudioSystem.getAudioInputStream(file)) {
+			AudioFormat format = in.getFormat();
+			byte[] data = in.readAllBytes();
+			Clip[] clips = new Clip[CLIPS_PER_SOUND];
+			for (int i=0; i<clips.length; i++){
+				clips[i] = AudioSystem.getClip();
+				clips[i].open(format, data, 0, data.length);
+			}
+			return new Sound(clips);
+		} catch (UnsupportedAudioFileException e) {
+			System.err.println("Unsupported audio file: " + file);
+		} catch (IOException e) {
+			System.err.println("Error reading audio file: " + file);
+		} catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+			// no sound device, e.g. on a headless machine
+			System.err.println("Audio line unavailable for: " + file);
+		}
+		return null;
+	}
+
+	/*
+	 * This class is the open clips of one sound, used in turn
+	 */
+	static final class Sound {
+		final Clip[] clips;
+		private int next; // only touched by the player thread
+
+		Sound(Clip[] clips){
+			this.clips = clips;
+		}
+
+		// rewinds the least recently started clip and plays it
+		void play(){
+			long start = Metrics.start();
+			Clip clip = clips[next];
+			next = (next + 1) % clips.length;
+			clip.stop();
+			clip.setFramePosition(0);
+			clip.start();
+			Metrics.stop(Metrics.SOUND, start);
+		}
+	}
+}
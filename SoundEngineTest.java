@@ -0,0 +1,55 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.Clip;
+
+public class SoundEngineTest {
+
+	// a clip that only logs the calls made on it
+	private static Clip fakeClip(int id, List<String> calls) {
+		return (Clip) Proxy.newProxyInstance(Clip.class.getClassLoader(), new Class<?>[] {Clip.class},
+				(proxy, method, args) -> {
+					calls.add(id + " " + method.getName() + (args == null ? "" : " " + args[0]));
+					return null;
+				});
+	}
+
+	@Test
+	public void testClipsUsedInTurn() {
+		List<String> calls = new ArrayList<>();
+		Clip[] clips = {fakeClip(0, calls), fakeClip(1, calls), fakeClip(2, calls)};
+		SoundEngine.Sound sound = new SoundEngine.Sound(clips);
+
+		for (int i = 0; i < 4; i++) {
+			sound.play();
+		}
+
+		List<String> expected = new ArrayList<>();
+		for (int id : new int[] {0, 1, 2, 0}) {
+			expected.add(id + " stop");
+			expected.add(id + " setFramePosition 0");
+			expected.add(id + " start");
+		}
+		assertEquals("Each play should rewind and start the least recently used clip", expected, calls);
+	}
+
+	@Test
+	public void testMissingSoundsPlaySilently() {
+		File folder = new File(System.getProperty("java.io.tmpdir"), "no-such-sounds");
+		SoundEngine engine = new SoundEngine(folder, new String[] {"error"});
+		try {
+			assertFalse(engine.has("error"));
+			engine.play("error");
+			engine.play("never asked for");
+		} finally {
+			engine.close();
+			engine.close();
+		}
+	}
+}
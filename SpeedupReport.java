@@ -0,0 +1,87 @@
+/*
+ * File: SpeedupReport.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class measures how the parallel expectimax search scales with the
+ * number of threads. It builds a fixed set of positions from a seed, times a
+ * ParallelExpectimaxPlayer choosing a move for each of them with 1, 2, 4, 8
+ * and 16 threads, and prints the time and speedup over one thread.
+ *
+ * Usage: java SpeedupReport [depth] [positions] [seed]
+ */
+
+import java.util.Random;
+
+
+public class SpeedupReport {
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+	// running this prints the report
+	public static void main(String[] args){
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 2048;
+		long[] positions = positions(count, seed);
+
+		System.out.println("depth " + depth + ", " + count + " positions, seed " + seed
+				+ ", " + Runtime.getRuntime().availableProcessors() + " cores available");
+		System.out.println("threads\tms\tspeedup");
+
+		// one untimed pass per thread count so the JIT has compiled the search
+		// and the pool code before anything is measured
+		for (int threads : THREAD_COUNTS){
+			time(threads, depth, positions);
+		}
+		long single = 0;
+		for (int threads : THREAD_COUNTS){
+			long nanos = time(threads, depth, positions);
+			if (threads == 1) single = nanos;
+			System.out.printf("%d\t%d\t%.2f%n", threads, nanos / 1_000_000, (double) single / nanos);
+		}
+	}
+
+	// times one player with a fresh table over all positions
+	private static long time(int threads, int depth, long[] positions){
+		ParallelExpectimaxPlayer player = new ParallelExpectimaxPlayer(depth, 0, threads);
+		long start = System.nanoTime();
+		for (long position : positions){
+			player.chooseMove(position);
+		}
+		long elapsed = System.nanoTime() - start;
+		player.shutdown();
+		return elapsed;
+	}
+
+	// mid-game positions reached by playing random moves from a seeded start
+	private static long[] positions(int count, long seed){
+		Random random = new Random(seed);
+		long[] positions = new long[count];
+		for (int p=0; p<count; p++){
+			long board = 0;
+			int moves = 50 + random.nextInt(150);
+			for (int m=0; m<moves || BitBoard.countEmpty(board) == BitBoard.TILES; m++){
+				board = spawn(board, random);
+				long moved = BitBoard.move(board, random.nextInt(4));
+				if (!BitBoard.canMove(moved) || BitBoard.countEmpty(moved) == 0) break;
+				board = moved;
+			}
+			positions[p] = board;
+		}
+		return positions;
+	}
+
+	// adds a 2 or a 4 to a random empty cell of a packed board
+	private static long spawn(long board, Random random){
+		int empty = BitBoard.countEmpty(board);
+		if (empty == 0) return board;
+		int target = random.nextInt(empty);
+		for (int i=0; i<BitBoard.TILES; i++){
+			if (((board >>> (4*i)) & 0xF) != 0) continue;
+			if (target-- == 0) {
+				long exponent = random.nextInt(4) == 0 ? 2 : 1;
+				return board | (exponent << (4*i));
+			}
+		}
+		return board;
+	}
+}
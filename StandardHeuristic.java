@@ -0,0 +1,107 @@
+/*
+ * File: StandardHeuristic.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This enum holds the line heuristics commonly used to play 2048. Each is
+ * measured on exponents rather than tile values, so a 2048 next to a 1024
+ * counts the same as a 4 next to a 2. Penalties are negative, so every
+ * heuristic is meant to be given a positive weight.
+ */
+
+
+public enum StandardHeuristic implements RowHeuristic {
+	// open cells keep the game going
+	EMPTY {
+		@Override
+		public double score(int[] line){
+			int empty = 0;
+			for (int e : line){
+				if (e == 0) empty++;
+			}
+			return empty;
+		}
+	},
+
+	// equal tiles that would meet if the line were shifted
+	MERGES {
+		@Override
+		public double score(int[] line){
+			int merges = 0;
+			int previous = 0;
+			int run = 0;
+			for (int e : line){
+				if (e == 0) continue;
+				if (e == previous) {
+					run++;
+				} else {
+					if (run > 0) merges += 1 + run;
+					previous = e;
+					run = 0;
+				}
+			}
+			if (run > 0) merges += 1 + run;
+			return merges;
+		}
+	},
+
+	// tiles rising or falling steadily along the line; a big tile out of
+	// order costs much more than a small one
+	MONOTONICITY {
+		@Override
+		public double score(int[] line){
+			double rising = 0;
+			double falling = 0;
+			for (int i=1; i<line.length; i++){
+				double before = Math.pow(line[i-1], 4);
+				double after = Math.pow(line[i], 4);
+				if (line[i-1] > line[i]) rising += before - after;
+				else falling += after - before;
+			}
+			// only the direction the line breaks less is held against it
+			return -Math.min(rising, falling);
+		}
+	},
+
+	// neighbouring tiles close in size are easier to merge later
+	SMOOTHNESS {
+		@Override
+		public double score(int[] line){
+			double rough = 0;
+			int previous = 0;
+			for (int e : line){
+				if (e == 0) continue;
+				if (previous != 0) rough += Math.abs(e - previous);
+				previous = e;
+			}
+			return -rough;
+		}
+	},
+
+	// the biggest tile of the line at one of its ends, so the biggest tile
+	// of the board ends up in a corner where new tiles cannot land next to it
+	CORNER {
+		@Override
+		public double score(int[] line){
+			int max = 0;
+			for (int e : line){
+				max = Math.max(max, e);
+			}
+			return line[0] == max || line[line.length - 1] == max ? max : 0;
+		}
+	},
+
+	// a penalty of e^3.5 for every tile of exponent e; merging two tiles of
+	// 32 or more lowers it, by more the bigger they are, so boards where the
+	// big tiles have been merged are preferred; merging smaller tiles
+	// raises it a little
+	SUM {
+		@Override
+		public double score(int[] line){
+			double sum = 0;
+			for (int e : line){
+				sum += Math.pow(e, 3.5);
+			}
+			return -sum;
+		}
+	}
+}
@@ -5,11 +5,22 @@
  * This class encapsulates a tile's details. Encapsulation is maintained by
  * keeping all instance variables private and providing getter methods only to
  * access the tile's information. These getter methods ensure controlled access.
+ * Tiles never change, so Tile.of() hands out one shared tile per power of two
+ * instead of making a new one each time.
  */
 
 
 public class Tile {
-	private int val;
+	private static final Tile[] CACHE = new Tile[Integer.SIZE - 1]; // by exponent, 0 is the empty tile
+	private static final Tile ONE = new Tile(1); // 2^0, whose exponent the empty tile takes
+	static {
+		CACHE[0] = new Tile(0);
+		for (int i=1; i<CACHE.length; i++){
+			CACHE[i] = new Tile(1 << i);
+		}
+	}
+
+	private final int val;
 	
 	/*
 	 * Constructs a new tile with a given value and assigns a color to the tile
@@ -20,6 +31,20 @@ public class Tile {
 	public Tile(int val) {
 		this.val = val;
 	}
+
+	/**
+	 * Obtains the shared tile of a value
+	 *
+	 * @param val: int; 0 for an empty tile, or a power of two from 1 up to 2^30
+	 * @return Tile; the same tile for every call with that value, a new tile
+	 * for any other value
+	 */
+	public static Tile of(int val) {
+		if (val == 0) return CACHE[0];
+		if (val == 1) return ONE;
+		if (val > 1 && (val & (val - 1)) == 0) return CACHE[Integer.numberOfTrailingZeros(val)];
+		return new Tile(val);
+	}
 	
 	/*
 	 * Getter method for the val of a tile.
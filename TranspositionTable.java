@@ -0,0 +1,130 @@
+/*
+ * File: TranspositionTable.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class caches the value a search computed for a packed 4x4 board (see
+ * BitBoard) so the same position is not evaluated again when it is reached
+ * through a different order of moves. The table has a fixed number of slots
+ * chosen up front, so its memory use is bounded. Slots are grouped in buckets
+ * of two; a new entry takes an empty slot if there is one, otherwise it
+ * evicts the entry that was searched to the smaller depth, since that one is
+ * the cheapest to recompute.
+ */
+
+import java.util.Arrays;
+
+
+public class TranspositionTable {
+	protected static final int BUCKET = 2;
+
+	private final long[] keys;
+	private final double[] values;
+	private final byte[] depths; // 0 marks an empty slot
+	private final int mask; // selects a bucket from a hash
+	private long hits;
+	private long misses;
+
+	/*
+	 * Constructor for a table with 2^capacityBits slots; each slot takes 17
+	 * bytes, so 20 bits is roughly 17 MB
+	 * @param capacityBits - between 1 and 30
+	 */
+	public TranspositionTable(int capacityBits){
+		if (capacityBits < 1 || capacityBits > 30) {
+			throw new IllegalArgumentException("capacityBits must be between 1 and 30");
+		}
+		int capacity = 1 << capacityBits;
+		keys = new long[capacity];
+		values = new double[capacity];
+		depths = new byte[capacity];
+		mask = (capacity - 1) & ~(BUCKET - 1);
+	}
+
+	/**
+	 * Looks up the value stored for a board
+	 *
+	 * @param board: long; the packed board
+	 * @param depth: int; the depth the caller is about to search to
+	 * @return double; the cached value if the board was searched at least as
+	 * deep, otherwise NaN
+	 */
+	public double get(long board, int depth){
+		int slot = bucketOf(board);
+		for (int i=slot; i<slot+BUCKET; i++){
+			if (depths[i] != 0 && keys[i] == board){
+				if (depths[i] >= depth) {
+					countHit();
+					return values[i];
+				}
+				break;
+			}
+		}
+		countMiss();
+		return Double.NaN;
+	}
+
+	/**
+	 * Stores the value of a board searched to the given depth
+	 *
+	 * @pre 1 <= depth <= 127
+	 */
+	public void put(long board, int depth, double value){
+		int slot = bucketOf(board);
+		int victim = slot;
+		for (int i=slot; i<slot+BUCKET; i++){
+			// reuse the slot already holding this board, or an empty one
+			if (depths[i] == 0 || keys[i] == board){
+				victim = i;
+				break;
+			}
+			if (depths[i] < depths[victim]) victim = i;
+		}
+		keys[victim] = board;
+		values[victim] = value;
+		depths[victim] = (byte) depth;
+	}
+
+	/**
+	 * Empties the table and resets its statistics
+	 */
+	public void clear(){
+		Arrays.fill(depths, (byte) 0);
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Obtains the number of lookups that found a usable entry
+	 *
+	 * @return long; hits since the table was created or cleared
+	 */
+	public long getHits(){
+		return hits;
+	}
+
+	/**
+	 * Obtains the number of lookups that found nothing usable
+	 *
+	 * @return long; misses since the table was created or cleared
+	 */
+	public long getMisses(){
+		return misses;
+	}
+
+	// records a lookup that found a usable entry
+	protected void countHit(){
+		hits++;
+	}
+
+	// records a lookup that found nothing usable
+	protected void countMiss(){
+		misses++;
+	}
+
+	// spreads the bits of a board over the table and picks its bucket
+	protected int bucketOf(long board){
+		long h = board * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 32;
+		return (int) h & mask;
+	}
+}
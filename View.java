@@ -8,8 +8,6 @@
  */
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.awt.Color;
 import java.awt.FlowLayout;
@@ -18,21 +16,37 @@ import java.awt.GridLayout;
 import java.awt.Panel;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.util.Scanner;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
 import javax.swing.*;
 
 
 public class View extends JFrame {
 	private Board board;
-	private JLabel[] tileList;
+	private BoardPanel boardPanel; // the board of the current game
 	private JPanel[] panelList = new JPanel[5];
 	private int boardSize;
+	private static final int UNDO_LEVELS = 100; // moves the player can take back with Z
+	private static final String REPLAY_FILE = "replays.bin"; // every game played is appended here
+	private final ReplayRecorder recorder = new ReplayRecorder();
+	private static final String LEADERBOARD_FILE = "leaderboard.txt";
+	// scores are saved and looked up through the LeaderboardServer on this machine
+	private final LeaderboardClient leaderboard = new LeaderboardClient(LeaderboardServer.DEFAULT_PORT);
+	private boolean leaderboardChecked; // whether this window tried to serve the leaderboard itself
+	// the server this window runs when no other game does, with its store and threads
+	private LeaderboardServer leaderboardServer;
+	private LeaderboardStore leaderboardStore;
+	private ExecutorService leaderboardThreads;
+	// the sounds the game plays, each decoded once
+	private static final String[] SOUNDS = {"valid move", "error", "game won", "game over"};
+	private final SoundEngine sounds = new SoundEngine(new File("sounds"), SOUNDS);
+	private static final int FRAME_MILLIS = 16; // the board is redrawn at most this often
+	private GameLoop loop; // applies the moves of the current game
+	private long shownVersion = -1; // version of the board as last drawn
 
 	/*
 	 * This is the constructor method that initializes the board and boardSize variables to the 
@@ -44,111 +58,149 @@ public class View extends JFrame {
 		setTitle("2048 Game");
 		setSize(400, 400);
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		// the audio lines stay open until the engine is closed
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				sounds.close();
+				stopLeaderboard();
+			}
+		});
+		// redraws are coalesced to one a frame, however fast moves are applied
+		new Timer(FRAME_MILLIS, frame -> refreshBoard()).start();
 	}
 
-	// This is the method that calls the Board.java (the model) update method to update the 
-	// the board and refresh the game board. It also calls the methods to play the appropriate sounds
-	// based on the move and game situation.
+	// This is the method that turns a key into a command for the game loop, which
+	// applies it to the board (the model) off the Swing thread. Keys pressed faster
+	// than moves are applied are dropped rather than queued up.
 	// @param: an int that is essentially an enum showing the input key hit
 	private void handleKeyPress(int keyCode) {
-		
-	    int gameOver;
+	    int command;
 	    switch (keyCode) {
-	        case KeyEvent.VK_LEFT:
-	            if (board.update("left")) { // valid move
-	            playSound("sounds/valid move.wav");
-	        } else {
-	            playSound("sounds/error.wav"); // invalid move
-	        }
+	    case KeyEvent.VK_LEFT:
+	        command = BitBoard.LEFT;
 	        break;
 	    case KeyEvent.VK_RIGHT:
-	        if (board.update("right")) {
-	            playSound("sounds/valid move.wav");
-	        } else {
-	            playSound("sounds/error.wav");
-	        }
+	        command = BitBoard.RIGHT;
 	        break;
 	    case KeyEvent.VK_UP:
-	        if (board.update("up")) {
-	            playSound("sounds/valid move.wav");
-	        } else {
-	            playSound("sounds/error.wav");
-	        }
+	        command = BitBoard.UP;
 	        break;
 	    case KeyEvent.VK_DOWN:
-	        if (board.update("down")) {
-	            playSound("sounds/valid move.wav");
-	        } else {
-	            playSound("sounds/error.wav");
-	        }
+	        command = BitBoard.DOWN;
+	        break;
+	    case KeyEvent.VK_Z: // undo the last move
+	        command = GameLoop.UNDO;
+	        break;
+	    case KeyEvent.VK_Y: // redo a move that was undone
+	        command = GameLoop.REDO;
 	        break;
 	    default:
-	        playSound("sounds/error.wav"); // Error sound if wrong key is pressed
+	        sounds.play("error"); // Error sound if wrong key is pressed
+	        return;
+	    }
+	    if (loop != null) loop.offer(command);
 	}
-	
-	// Check whether the game is over 
-	gameOver = board.gameOverCode();
-	// gameOver is 0 if we still can play
-	if (gameOver != 0) { 
-		// code is 1 if we win
-	    if (gameOver == 1) { 
-	        playSound("sounds/game won.wav");
+
+	// Method called by the game loop after each command to record the move for the
+	// replay and play the sound for a valid or invalid move
+	// @param: an int that is the command, as in GameLoop.Listener.applied
+	// @param: a long that is the command's result
+	private void moveApplied(int command, long result) {
+	    boolean valid;
+	    if (command == GameLoop.UNDO) {
+	        valid = result != 0;
+	        if (valid) recorder.undo();
+	    } else if (command == GameLoop.REDO) {
+	        valid = result != 0;
+	        if (valid) recorder.redo();
+	    } else {
+	        valid = MoveResult.changed(result);
+	        if (valid) recorder.record(command, result);
+	    }
+	    sounds.play(valid ? "valid move" : "error");
+	}
+
+	// Method called back on the Swing thread once the game loop has ended the game
+	// @param: an int that is 1 if the player won and -1 if they lost
+	private void endGame(int gameOver) {
+	    stopLoop();
+	    refreshBoard(); // show the last move
+	    saveReplay();
+	    // code is 1 if we win
+	    if (gameOver == 1) {
+	        sounds.play("game won");
 	        setUsernameEntry(true);
 	    // code is -1 if we loose
-	    } else if (gameOver == -1) {
-	        playSound("sounds/game over.wav");
+	    } else {
+	        sounds.play("game over");
 	        setUsernameEntry(false);
 	    }
-	 // switch to the game over panel if game is over
-	    switchPanels(2); 
-	}
-	
-	refreshBoard(); // Update the UI after a move
+	    // switch to the game over panel
+	    switchPanels(2);
 	}
 
-	
-	// Method to refresh the board display
-	private void refreshBoard() {
-	    Tile[][] boardPos = board.getBoardState();
-	    for (int i = 0; i < tileList.length; i++) {
-	        int value = boardPos[i / getBoardSize()][i % getBoardSize()].getVal();
-	        tileList[i].setText(value == 0 ? "" : Integer.toString(value));
-	        int currLogVal = value == 0 ? 0 : (int) (Math.log(value) / Math.log(2));
-	        tileList[i].setBackground(new Color(250 - 10 * currLogVal, 230 - 10 * currLogVal, 210 - 10 * currLogVal));
-	    }
-	    repaint();
-	}
+	// Method to start a new game of the given size and begin recording it
+	// @param: an int that is the number of tiles per row/column
+	private void newGame(int size) {
+		stopLoop();
+		saveReplay(); // a game left unfinished is still worth keeping
+		long seed = System.nanoTime();
+		board = new Board(size, seed);
+		board.setUndoLevels(UNDO_LEVELS);
+		recorder.begin(board, seed);
+		loop = new GameLoop(board, new GameLoop.Listener() {
+			@Override
+			public void applied(int command, long result) {
+				moveApplied(command, result);
+			}
 
-	// Method to play the sound based on the soundFile
-	// @param: A String that is the name of the file containing the sound
-	private void playSound(String soundFile) {
-	    try {
-	        // Load the sound file
-	        File file = new File(soundFile);
-	        if (!file.exists()) {
-	            System.err.println("Sound file not found: " + soundFile);
-	            return;
-	        }
+			@Override
+			public void gameOver(int code) {
+				SwingUtilities.invokeLater(() -> endGame(code));
+			}
+		});
+		shownVersion = -1;
+		loop.start();
+	}
 
-	        // Create an AudioInputStream
-	        AudioInputStream audioStream = AudioSystem.getAudioInputStream(file); 
+	// Method to stop the game and close the sounds along with the window
+	@Override
+	public void dispose() {
+		stopLoop();
+		sounds.close();
+		stopLeaderboard();
+		super.dispose();
+	}
 
-	        // Get a sound clip resource
-	        Clip clip = AudioSystem.getClip();
-	        clip.open(audioStream);
+	// Method to stop the game loop so the board can be used from the Swing thread
+	private void stopLoop() {
+		if (loop != null) loop.stop();
+	}
 
-	        // Play the clip
-	        clip.start();
-	    } catch (UnsupportedAudioFileException e) {
-	        System.err.println("Unsupported audio file: " + soundFile);
-	    } catch (IOException e) {
-	        System.err.println("Error reading audio file: " + soundFile);
-	    } catch (LineUnavailableException e) {
-	        System.err.println("Audio line unavailable for: " + soundFile);
-	    }
+	// Method to append the game being recorded to the replay file
+	private void saveReplay() {
+		if (!recorder.isRecording() || recorder.getMoveCount() == 0) return;
+		recorder.finish();
+		try (ReplayWriter replays = ReplayWriter.append(new File(REPLAY_FILE))) {
+			replays.write(recorder);
+		} catch (IOException e) {
+			System.err.println("Error writing replay file: " + REPLAY_FILE);
+		}
 	}
 	
-	
+	// Method to refresh the board display, called every frame; it only draws
+	// when the game loop has applied a command since the last frame
+	private void refreshBoard() {
+	    if (loop == null || boardPanel == null) return;
+	    BoardSnapshot boardPos = loop.current();
+	    if (boardPos.getVersion() == shownVersion || boardPos.getSize() != boardPanel.getBoardSize()) return;
+	    long start = Metrics.start();
+	    shownVersion = boardPos.getVersion();
+	    boardPanel.show(boardPos); // repaints the tiles that changed
+	    Metrics.stop(Metrics.RENDER, start);
+	}
+
 	// creates the bottom bar Panel consisting the Main Menu and Restart buttons. 
 	// Then it saves this bar to the panelList array
 	private void setBottomBar() {
@@ -162,6 +214,8 @@ public class View extends JFrame {
 		JButton mainMenuButton = new JButton("Main Menu");
 		mainMenuButton.setBounds(boardSize/3 - 50, boardSize + 25, 100, 50);
 		mainMenuButton.addActionListener(click -> {
+			stopLoop();
+			saveReplay();
 			boardSize = 400; // need to reset boardsize so window can resize appropriately
 			switchPanels(0); 
 			});
@@ -171,7 +225,7 @@ public class View extends JFrame {
 		JButton restartButton = new JButton("Restart");
 		restartButton.setBounds(2*boardSize/3 - 50, boardSize + 25, 100, 50);
 		restartButton.addActionListener(click -> {
-			board = new Board(boardSize/100);
+			newGame(boardSize/100);
 			setGameBoard();
 			switchPanels(1);
 		});
@@ -184,31 +238,11 @@ public class View extends JFrame {
 	// Then we add it to the panelList so it can easily be added to the Frame
 	private void setGameBoard() {
 		
-		JPanel gameBoard = new JPanel();
-		JLabel tile; 
-		int currLogVal;
-		gameBoard.setLayout(new GridLayout(getBoardSize(), getBoardSize()));
-		gameBoard.setSize(getBoardSize()*100, getBoardSize()*100);
-		tileList = new JLabel[getBoardSize()*getBoardSize()];
-		Tile[][] boardPos = board.getBoardState();
-		
-		for (int i = 0; i < getBoardSize()*getBoardSize(); i++) {
-			
-			 tile = new JLabel(Integer.toString(boardPos[i/getBoardSize()][i%getBoardSize()].getVal()));
-			 tile.setSize(100, 100);
-			 tile.setFont(new Font("Impact", Font.PLAIN, 24));
-			 // since we can't take log of 0, we just set it to 0
-			 if (boardPos[i/getBoardSize()][i%getBoardSize()].getVal() == 0) {currLogVal = 0; tile.setText("");}
-			 // otherwise we take the log of the tile value so we can create various different colours for the gui tiles
-			 else {currLogVal = (int) (Math.log(boardPos[i/getBoardSize()][i%getBoardSize()].getVal())/Math.log(2));}
-			 
-			 tile.setBackground(new Color(250 - 10*currLogVal, 230 - 10*currLogVal, 210 - 10*currLogVal));
-			 tile.setOpaque(true);
-			 tile.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
-			 tile.setHorizontalAlignment(SwingConstants.CENTER);
-			 gameBoard.add(tile);
-			 tileList[i] = tile;
-		}
+		// one component paints every tile, redrawing only the tiles a move changed
+		BoardPanel gameBoard = new BoardPanel(getBoardSize(), 100);
+		gameBoard.show(loop.current());
+		shownVersion = loop.current().getVersion();
+		boardPanel = gameBoard;
 		
 		gameBoard.setFocusable(true);
 		// the method needed to listen for the arrow key hits
@@ -265,7 +299,7 @@ public class View extends JFrame {
 	            int newSize = Integer.parseInt(sizeInput.getText());
 	            // check to make sure that the user input size is between 4-8
 	            if (newSize > 8 || newSize < 4) {throw new NumberFormatException();}
-	            board = new Board(newSize);
+	            newGame(newSize);
 	            boardSize = newSize*100;
 	            setBottomBar();
 	            setGameBoard();
@@ -277,32 +311,39 @@ public class View extends JFrame {
 	   
 		// method that makes us go to the leaderboard when button is clicked
 		leaderboard.addActionListener(click -> {
+			// show the scores of the board size typed in, 4x4 if it isn't one
+			int size = 4;
+			try {
+				size = Math.max(4, Math.min(8, Integer.parseInt(sizeInput.getText())));
+			} catch (NumberFormatException e) {
+				// keep showing 4x4
+			}
 			setBottomBar();
-			setLeaderBoard();	
+			setLeaderBoard(size);	
 			switchPanels(3);
 		});
 	}
 	
 	// method to set the leaderboard containing top 10 scores
-	private void setLeaderBoard() {
+	// @param: an int that is the board size whose scores are shown
+	private void setLeaderBoard(int size) {
 		
 		JPanel leaders = new JPanel(new GridLayout(11, 2)); // creates a table of sorts
 		leaders.setBackground(Color.CYAN);
 		leaders.setSize(boardSize, boardSize);
 		
-		// reading the leaderboard.txt file to obtain the top 10 scores
-		Scanner leaderFile;
+		// the server keeps every score sorted, so we only ask for the top 10
+		List<LeaderboardEntry> top;
 		try {
-			leaderFile = new Scanner(new File("leaderboard.txt"));
-		} catch (FileNotFoundException e){
-			e.printStackTrace();
+			top = getLeaderboard().top(size, 10);
+		} catch (IOException e) {
+			System.err.println("Could not reach the leaderboard: " + e.getMessage());
 			return;
 		}
-		String currLine; JLabel name, score;
-		String[] splitLine;
+		JLabel name, score;
 		
 		name = new JLabel("Username");
-		score = new JLabel("High Score");
+		score = new JLabel("High Score (" + size + "x" + size + ")");
 		name.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY)); // headers have to be in a bigger, bolder font
 		name.setFont(new Font("Impact", Font.PLAIN, 24));
 		score.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
@@ -310,16 +351,12 @@ public class View extends JFrame {
 		leaders.add(name);
 		leaders.add(score);
 		
-		int i = 0;
-		// assuming the file is formatted "username, score"
-		while (i < 10) {
-			if (leaderFile.hasNextLine()) {
-				currLine = leaderFile.nextLine();
-				splitLine = currLine.split(",");
-				name = new JLabel(splitLine[0]);
-				score = new JLabel(splitLine[1]);
+		for (int i = 0; i < 10; i++) {
+			if (i < top.size()) {
+				name = new JLabel(top.get(i).getName());
+				score = new JLabel(Integer.toString(top.get(i).getScore()));
 			} else {
-				// when we have less than 10 entries in the file
+				// when we have less than 10 entries
 				name = new JLabel();
 				score = new JLabel();
 			}
@@ -329,10 +366,8 @@ public class View extends JFrame {
 			score.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
 			leaders.add(name);
 			leaders.add(score);
-			i++;
 		}
 		panelList[3] = leaders;
-		leaderFile.close();
 	}
 	
 	// Method to set the panel where the player can enter their username for the leaderboard
@@ -384,7 +419,7 @@ public class View extends JFrame {
 			// and goes back to the mainpage
 			submit.addActionListener(click -> {
 				if (!(entryField.getText() == null || entryField.getText().length() == 0)) {
-					addToLeaderboard(entryField.getText() + "," + score, pos);
+					addToLeaderboard(entryField.getText(), score);
 					boardSize = 400;
 					switchPanels(0);
 				}
@@ -426,79 +461,73 @@ public class View extends JFrame {
 	
 	// Method to find the leaderboard position based on score
 	// @param: an integer indicating the score of the player in the game
-	// @return: returns an integer indicating the positon on leaderboard
+	// @return: returns an integer indicating the positon on leaderboard, -1 if it is not in the top 10
 	private int leaderboardPos(int score) {
-		Scanner leaderFile;
+		int pos;
 		try {
-			// making a scanner of the leaderboard file
-			leaderFile = new Scanner(new File("leaderboard.txt"));
-		} catch (FileNotFoundException e) {
-			return -1; // shouldn't happen if leaderboard.txt isn't moved from the directory
-		}
-		
-		String currLine;
-		int pos = 1;
-		while (leaderFile.hasNextLine()) {
-			// if the position is over 10 we don't display so we return -1 to indicate that
-			if (pos > 10) {
-				leaderFile.close();
-				return -1;
-			}
-			currLine = leaderFile.nextLine();
-			if (score > Integer.parseInt(currLine.split(",")[1].strip())) {
-				leaderFile.close();
-				return pos;
-			}
-			pos++;
-		}
-		
-		leaderFile.close();
-		if (pos > 10) { // if our position is over 10 return -1
+			pos = getLeaderboard().rankOf(score, getBoardSize());
+		} catch (IOException e) {
+			System.err.println("Could not reach the leaderboard: " + e.getMessage());
 			return -1;
 		}
-		return pos;
+		return pos > 10 ? -1 : pos;
 	}
 
 	
-	// Method to add an entry to the leaderboard file
-	// @param: String that is the line in format "username, score" to be added to the leaderboard file
-	// @param: int that is the position at which it needs to be added
-	private void addToLeaderboard(String toAdd, int pos) {
-		
-		Scanner leaderFile;
+	// Method to add an entry to the leaderboard
+	// @param: String that is the username to save the score under
+	// @param: int that is the score of the game
+	private void addToLeaderboard(String name, int score) {
 		try {
-			leaderFile = new Scanner(new File("leaderboard.txt"));
-			int i = 1;
-			boolean added = false;
-			StringBuilder fileContent = new StringBuilder();
-			while (leaderFile.hasNextLine() && i <= 10) {
-				// append the new entry to the stringbuilder if position and i are equal
-				if (pos == i) {
-					fileContent.append(toAdd);
-					// set added to true so we don't accidentally add at the end when we have less than 10 entries
-					added = true; 
-				}
-				// append the pre-existing records if not
-				else {
-					fileContent.append(leaderFile.nextLine());
-				}
-				fileContent.append(System.lineSeparator());
-				i++;
+			getLeaderboard().add(name, score, getBoardSize());
+		} catch (IOException e) {
+			System.err.println("Could not save the score: " + e.getMessage());
+		}
+	}
+	
+	// Method to obtain the client of the leaderboard; the first time, if no other game or
+	// LeaderboardServer has leaderboard.txt open, this window starts the server for everyone
+	// @return: the client, whose requests fail if no server can be reached
+	private LeaderboardClient getLeaderboard() {
+		if (!leaderboardChecked) {
+			leaderboardChecked = true;
+			LeaderboardStore store;
+			try {
+				store = new LeaderboardStore(new File(LEADERBOARD_FILE));
+			} catch (IOException | RuntimeException e) {
+				return leaderboard; // held by the process serving it, or unreadable
 			}
-			
-			if (i <= 10 && !added) {
-				fileContent.append(toAdd + System.lineSeparator());
+			ExecutorService threads = Executors.newFixedThreadPool(2);
+			try {
+				leaderboardServer = new LeaderboardServer(store, LeaderboardServer.DEFAULT_PORT, threads);
+				leaderboardServer.start();
+				leaderboardStore = store;
+				leaderboardThreads = threads;
+			} catch (IOException e) {
+				// the port is taken, so the client will reach whatever listens there
+				System.err.println("Could not serve the leaderboard: " + e.getMessage());
+				threads.shutdown();
+				closeQuietly(store);
 			}
-			leaderFile.close();
-			System.out.println(pos + " " + toAdd);
-			System.out.println(fileContent.toString());
-			// use FileWriter to overwrite leaderboard.txt with the new string
-			FileWriter toLeaderboard = new FileWriter("leaderboard.txt");
-			toLeaderboard.write(fileContent.toString());
-			toLeaderboard.close();
-			
+		}
+		return leaderboard;
+	}
+	
+	// Method to stop the leaderboard server this window started, if it started one
+	private void stopLeaderboard() {
+		if (leaderboardServer == null) return;
+		leaderboardServer.stop();
+		leaderboardThreads.shutdown();
+		closeQuietly(leaderboardStore);
+		leaderboardServer = null;
+	}
+	
+	// Method to close the leaderboard files, reporting rather than throwing a failure
+	private static void closeQuietly(LeaderboardStore store) {
+		try {
+			store.close();
 		} catch (IOException e) {
-			e.printStackTrace();
+			System.err.println("Could not close the leaderboard: " + e.getMessage());
 		}
 	}
 	
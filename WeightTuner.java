@@ -0,0 +1,411 @@
+/*
+ * File: WeightTuner.java
+ * Authors: Elliott Cepin, Yashi Gupta, Aarush Parvataneni, Alex Salgado
+ *
+ * This class searches for good HeuristicEvaluator weights with a genetic
+ * algorithm. Every generation each weight vector of the population plays the
+ * same set of seeded games with an ExpectimaxPlayer, all games of all
+ * candidates spread over a pool of threads, and is scored by its mean final
+ * score. The best quarter is kept and the rest is replaced by children of the
+ * kept ones: each weight taken from one of two parents, then scaled by a
+ * random factor around 1. Games are played past 2048 until no move is left,
+ * or until a move limit, so strong weights keep being told apart.
+ *
+ * Only the weights are tuned; the base stays as given. ExpectimaxPlayer
+ * values a lost board below anything its evaluator can give, so whatever
+ * weights are tried a lost board is never preferred to a live one.
+ *
+ * After every generation the population is written to a checkpoint file,
+ * replacing the last one in a single rename. A tuner started on an existing
+ * checkpoint carries on from it, and since every random choice comes from the
+ * seed and the generation number, carrying on gives the same weights as a
+ * run that was never stopped.
+ *
+ * Usage: java WeightTuner [--generations N] [--population P] [--games G]
+ *            [--depth D] [--max-moves M] [--threads T] [--seed S]
+ *            [--checkpoint FILE]
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+public class WeightTuner {
+	private static final double MUTATION = 0.2; // standard deviation of the log of a weight's scale factor
+	private static final int TABLE_BITS = 18; // transposition table of each thread, about 4 MB
+	private static final String HEADER = "# WeightTuner checkpoint";
+
+	private final StandardHeuristic[] heuristics;
+	private final double base;
+	private final int populationSize;
+	private final int games;
+	private final int depth;
+	private final int maxMoves;
+	private final int threads;
+	private final long seed;
+	private final File checkpoint; // null to not checkpoint
+	private final ThreadLocal<TranspositionTable> tables = ThreadLocal.withInitial(() -> new TranspositionTable(TABLE_BITS));
+
+	private int generation; // generations finished
+	private double[][] population; // weight vectors, one per candidate
+	private double[] fitness; // mean score of each candidate in the last generation, NaN before the first
+	private double[] best; // best weights found so far
+	private double bestFitness = Double.NaN;
+
+	/*
+	 * Constructor for a tuner starting from the default evaluator's weights,
+	 * or from a checkpoint if the file exists
+	 * @param heuristics - the heuristics whose weights are tuned
+	 * @param start - initial weights, one per heuristic
+	 * @param base - added to every line, as in HeuristicEvaluator; not tuned
+	 * @param populationSize - candidates per generation, at least 4
+	 * @param games - seeded games each candidate plays per generation
+	 * @param depth - search depth of the players
+	 * @param maxMoves - moves after which a game is stopped and scored
+	 * @param threads - games played at the same time
+	 * @param seed - decides every game and every random choice of the search
+	 * @param checkpoint - file the population is saved to after each
+	 * generation, null to not save it
+	 * @throws IOException if the checkpoint exists but cannot be read
+	 */
+	public WeightTuner(StandardHeuristic[] heuristics, double[] start, double base, int populationSize, int games,
+			int depth, int maxMoves, int threads, long seed, File checkpoint) throws IOException {
+		if (populationSize < 4) throw new IllegalArgumentException("population must be at least 4");
+		if (heuristics.length != start.length) {
+			throw new IllegalArgumentException(heuristics.length + " heuristics but " + start.length + " weights");
+		}
+		this.heuristics = heuristics.clone();
+		this.base = base;
+		this.populationSize = populationSize;
+		this.games = games;
+		this.depth = depth;
+		this.maxMoves = maxMoves;
+		this.threads = threads;
+		this.seed = seed;
+		this.checkpoint = checkpoint;
+		if (checkpoint != null && checkpoint.exists()) {
+			load();
+			return;
+		}
+		// the starting weights and mutations of them
+		SplittableRandom random = randomFor(-1);
+		population = new double[populationSize][];
+		population[0] = start.clone();
+		for (int i=1; i<populationSize; i++){
+			population[i] = mutate(start, random);
+		}
+		fitness = new double[populationSize];
+		Arrays.fill(fitness, Double.NaN);
+	}
+
+	/**
+	 * Plays one generation, breeds the next and saves the checkpoint
+	 *
+	 * @return double; the mean score of the generation's best candidate
+	 * @throws IOException if the checkpoint cannot be written
+	 * @throws InterruptedException if interrupted while games are played
+	 */
+	public double step() throws IOException, InterruptedException {
+		if (!Double.isNaN(fitness[0])) breed(); // the population was scored before
+		fitness = score(population, generation);
+		generation++;
+		int top = 0;
+		for (int i=1; i<populationSize; i++){
+			if (fitness[i] > fitness[top]) top = i;
+		}
+		if (Double.isNaN(bestFitness) || fitness[top] > bestFitness) {
+			bestFitness = fitness[top];
+			best = population[top].clone();
+		}
+		if (checkpoint != null) save();
+		return fitness[top];
+	}
+
+	/**
+	 * Obtains the number of generations played, including those of the
+	 * checkpoint it started from
+	 *
+	 * @return int; generations finished
+	 */
+	public int getGeneration(){
+		return generation;
+	}
+
+	/**
+	 * Obtains the best weights found so far
+	 *
+	 * @return double[]; one weight per heuristic, the starting weights before
+	 * the first generation
+	 */
+	public double[] getBest(){
+		return best == null ? population[0].clone() : best.clone();
+	}
+
+	/**
+	 * Obtains the mean score of the best weights
+	 *
+	 * @return double; NaN before the first generation
+	 */
+	public double getBestFitness(){
+		return bestFitness;
+	}
+
+	/**
+	 * Obtains the weights of every candidate of the current generation
+	 *
+	 * @return double[][]; a copy, one weight vector per candidate
+	 */
+	public double[][] getPopulation(){
+		double[][] copy = new double[populationSize][];
+		for (int i=0; i<populationSize; i++){
+			copy[i] = population[i].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * Makes an evaluator from weights found by the tuner
+	 *
+	 * @param weights: double[]; one weight per heuristic
+	 * @return HeuristicEvaluator; the tuned heuristics with those weights
+	 */
+	public HeuristicEvaluator evaluator(double[] weights){
+		return new HeuristicEvaluator(heuristics, weights, base);
+	}
+
+	// plays every candidate's games on the pool, returning each mean score;
+	// all candidates play the same seeds, so luck favours none of them
+	private double[] score(double[][] candidates, int gen) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (double[] weights : candidates){
+				HeuristicEvaluator evaluator = evaluator(weights); // shared by the candidate's games
+				for (int g=0; g<games; g++){
+					long gameSeed = gameSeed(gen, g);
+					Callable<Integer> game = () -> play(evaluator, gameSeed);
+					results.add(pool.submit(game));
+				}
+			}
+			double[] scores = new double[candidates.length];
+			for (int i=0; i<results.size(); i++){
+				scores[i / games] += results.get(i).get();
+			}
+			for (int i=0; i<scores.length; i++){
+				scores[i] /= games;
+			}
+			return scores;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("a game failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// the seed of game g of a generation, mixed like randomFor() so that runs
+	// with nearby seeds play unrelated games rather than the same ones shifted
+	private long gameSeed(int gen, int g){
+		return new SplittableRandom((seed * 0x9E3779B97F4A7C15L + gen) * 0x9E3779B97F4A7C15L + g).nextLong();
+	}
+
+	// plays a game to the end, past 2048, and returns its score
+	private int play(HeuristicEvaluator evaluator, long gameSeed){
+		TranspositionTable table = tables.get();
+		table.clear(); // values from another evaluator would mislead the search
+		ExpectimaxPlayer player = new ExpectimaxPlayer(depth, 0, table, evaluator);
+		Board board = new Board(BitBoard.SIZE, gameSeed);
+		for (int moves=0; moves<maxMoves; moves++){
+			int dir = player.chooseMove(board);
+			if (dir < 0 || !MoveResult.changed(board.move(dir, true))) break;
+		}
+		return board.getScore();
+	}
+
+	// replaces all but the best quarter with children of the best quarter
+	private void breed(){
+		Integer[] order = new Integer[populationSize];
+		for (int i=0; i<populationSize; i++){
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+		int kept = Math.max(2, populationSize / 4);
+		double[][] next = new double[populationSize][];
+		for (int i=0; i<kept; i++){
+			next[i] = population[order[i]];
+		}
+		SplittableRandom random = randomFor(generation);
+		for (int i=kept; i<populationSize; i++){
+			double[] mother = next[random.nextInt(kept)];
+			double[] father = next[random.nextInt(kept)];
+			double[] child = new double[mother.length];
+			for (int w=0; w<child.length; w++){
+				child[w] = random.nextBoolean() ? mother[w] : father[w];
+			}
+			next[i] = mutate(child, random);
+		}
+		population = next;
+	}
+
+	// scales each weight by a random factor around 1, keeping its sign
+	private static double[] mutate(double[] weights, SplittableRandom random){
+		double[] mutated = new double[weights.length];
+		for (int w=0; w<weights.length; w++){
+			mutated[w] = weights[w] * Math.exp(MUTATION * gaussian(random));
+		}
+		return mutated;
+	}
+
+	// a standard normal sample, SplittableRandom has no nextGaussian() in Java 17
+	private static double gaussian(SplittableRandom random){
+		double u = 1.0 - random.nextDouble(); // (0, 1], so the log is finite
+		return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+	}
+
+	// the random choices of breeding after a generation depend only on the
+	// seed and the generation, so a resumed run makes the same ones
+	private SplittableRandom randomFor(int gen){
+		return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + gen);
+	}
+
+	// writes the population to a temporary file and renames it over the checkpoint
+	private void save() throws IOException {
+		StringBuilder s = new StringBuilder(HEADER).append(System.lineSeparator());
+		s.append("generation ").append(generation).append(System.lineSeparator());
+		s.append("seed ").append(seed).append(System.lineSeparator());
+		s.append("base ").append(base).append(System.lineSeparator());
+		s.append("heuristics");
+		for (StandardHeuristic h : heuristics){
+			s.append(' ').append(h.name());
+		}
+		s.append(System.lineSeparator());
+		s.append("best ").append(bestFitness).append(join(best)).append(System.lineSeparator());
+		for (int i=0; i<populationSize; i++){
+			s.append("candidate ").append(fitness[i]).append(join(population[i])).append(System.lineSeparator());
+		}
+		Path file = checkpoint.toPath();
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(temp, s.toString().getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	// reads the population back from the checkpoint
+	private void load() throws IOException {
+		List<double[]> candidates = new ArrayList<>();
+		List<Double> scores = new ArrayList<>();
+		for (String line : Files.readAllLines(checkpoint.toPath(), StandardCharsets.UTF_8)){
+			String[] fields = line.trim().split("\\s+");
+			switch (fields[0]) {
+				case "generation":
+					generation = Integer.parseInt(fields[1]);
+					break;
+				case "seed":
+					if (Long.parseLong(fields[1]) != seed) throw new IOException(checkpoint + " was made with seed " + fields[1]);
+					break;
+				case "heuristics":
+					String[] names = Arrays.copyOfRange(fields, 1, fields.length);
+					for (int i=0; i<names.length; i++){
+						if (names.length != heuristics.length || !names[i].equals(heuristics[i].name())) {
+							throw new IOException(checkpoint + " tunes " + String.join(" ", names));
+						}
+					}
+					break;
+				case "best":
+					bestFitness = Double.parseDouble(fields[1]);
+					best = weights(fields);
+					break;
+				case "candidate":
+					scores.add(Double.parseDouble(fields[1]));
+					candidates.add(weights(fields));
+					break;
+				default:
+					break; // the header and the base, which is given again
+			}
+		}
+		if (candidates.size() != populationSize) {
+			throw new IOException(checkpoint + " holds " + candidates.size() + " candidates, not " + populationSize);
+		}
+		population = candidates.toArray(new double[0][]);
+		fitness = new double[populationSize];
+		for (int i=0; i<populationSize; i++){
+			fitness[i] = scores.get(i);
+		}
+	}
+
+	// the weights after the keyword and the fitness of a checkpoint line
+	private double[] weights(String[] fields){
+		if (fields.length - 2 != heuristics.length) throw new IllegalArgumentException("expected " + heuristics.length + " weights");
+		double[] weights = new double[fields.length - 2];
+		for (int i=0; i<weights.length; i++){
+			weights[i] = Double.parseDouble(fields[i + 2]);
+		}
+		return weights;
+	}
+
+	// the weights as " w1 w2 ..."
+	private static String join(double[] weights){
+		StringBuilder s = new StringBuilder();
+		for (double w : weights){
+			s.append(' ').append(w);
+		}
+		return s.toString();
+	}
+
+	// running this tunes the default evaluator's weights
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> options = new HashMap<>();
+		for (int i=0; i+1<args.length; i+=2){
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("expected an option but got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i+1]);
+		}
+		int generations = Integer.parseInt(options.getOrDefault("generations", "20"));
+		int population = Integer.parseInt(options.getOrDefault("population", "16"));
+		int games = Integer.parseInt(options.getOrDefault("games", "8"));
+		int depth = Integer.parseInt(options.getOrDefault("depth", "2"));
+		int maxMoves = Integer.parseInt(options.getOrDefault("max-moves", "5000"));
+		int threads = Integer.parseInt(options.getOrDefault("threads",
+				Integer.toString(Runtime.getRuntime().availableProcessors())));
+		long seed = Long.parseLong(options.getOrDefault("seed", "2048"));
+		File checkpoint = new File(options.getOrDefault("checkpoint", "weights.txt"));
+
+		HeuristicEvaluator start = HeuristicEvaluator.defaults();
+		RowHeuristic[] used = start.getHeuristics();
+		StandardHeuristic[] heuristics = new StandardHeuristic[used.length];
+		for (int i=0; i<used.length; i++){
+			heuristics[i] = (StandardHeuristic) used[i];
+		}
+		WeightTuner tuner = new WeightTuner(heuristics, start.getWeights(), start.getBase(), population, games,
+				depth, maxMoves, threads, seed, checkpoint);
+		if (tuner.getGeneration() > 0) {
+			System.out.println("Resuming from " + checkpoint + " after generation " + tuner.getGeneration());
+		}
+		while (tuner.getGeneration() < generations) {
+			long started = System.nanoTime();
+			double generationBest = tuner.step();
+			System.out.printf("generation %d: best %.1f, best so far %.1f%s (%.1f s)%n", tuner.getGeneration(),
+					generationBest, tuner.getBestFitness(), join(tuner.getBest()), (System.nanoTime() - started) / 1e9);
+		}
+		System.out.println(tuner.evaluator(tuner.getBest()));
+	}
+}
@@ -0,0 +1,49 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+public class WeightTunerTest {
+	private static final StandardHeuristic[] HEURISTICS = {StandardHeuristic.EMPTY, StandardHeuristic.MONOTONICITY};
+	private static final double[] START = {270, 47};
+
+	// a tuner small enough to run in a test
+	private static WeightTuner tuner(File checkpoint) throws IOException {
+		return new WeightTuner(HEURISTICS, START, 1000, 4, 2, 1, 60, 2, 5L, checkpoint);
+	}
+
+	@Test
+	public void testResumesWhereItStopped() throws Exception {
+		File straight = File.createTempFile("weights", ".txt");
+		File resumed = File.createTempFile("weights", ".txt");
+		straight.delete();
+		resumed.delete();
+		try {
+			WeightTuner uninterrupted = tuner(straight);
+			for (int i = 0; i < 3; i++) {
+				uninterrupted.step();
+			}
+
+			tuner(resumed).step();
+			WeightTuner carriedOn = tuner(resumed);
+			assertEquals("The checkpoint should hold the generation", 1, carriedOn.getGeneration());
+			carriedOn.step();
+			carriedOn = tuner(resumed);
+			carriedOn.step();
+
+			assertEquals(3, carriedOn.getGeneration());
+			double[][] expected = uninterrupted.getPopulation();
+			double[][] actual = carriedOn.getPopulation();
+			for (int i = 0; i < expected.length; i++) {
+				assertArrayEquals("A resumed run should breed the same weights", expected[i], actual[i], 0.0);
+			}
+			assertEquals(uninterrupted.getBestFitness(), carriedOn.getBestFitness(), 0.0);
+			assertTrue(carriedOn.getBestFitness() > 0);
+		} finally {
+			straight.delete();
+			resumed.delete();
+		}
+	}
+}